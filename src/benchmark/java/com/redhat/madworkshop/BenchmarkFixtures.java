@@ -0,0 +1,84 @@
+package com.redhat.madworkshop;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Module ConfigMaps shared by the load scenarios and the microbenchmarks. The Applications are shaped like the
+ * ones of the workshop: a git source, a destination namespace and Helm values referring to the user.
+ */
+final class BenchmarkFixtures {
+
+    static final String NAMESPACE = "workshop-deployer";
+
+    static final String MODULES_CONFIGMAP = "workshop-modules";
+
+    static final String MODULES_KEY = "modules.json";
+
+    private BenchmarkFixtures() {
+    }
+
+    static String configMapName(int module) {
+        return "module-" + module;
+    }
+
+    static String applicationName(int module) {
+        return "module-" + module + "-app";
+    }
+
+    static JsonArray modules(int count) {
+        JsonArray modules = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            modules.add(new JsonObject()
+                    .put("name", "Module " + i)
+                    .put("description", "Benchmark module " + i)
+                    .put("configMap", configMapName(i))
+                    .put("isDefault", i == 0)
+                    .put("tags", new JsonObject()
+                            .put("primary", new JsonArray().add("benchmark"))
+                            .put("secondary", new JsonArray().add("module-" + i)))
+                    .put("namespaces", new JsonArray()
+                            .add("module-" + i + "-{{ __user }}")
+                            .add("module-" + i + "-{{ __user }}-db")));
+        }
+        return modules;
+    }
+
+    /**
+     * @return the Application definition per module ConfigMap name
+     */
+    static Map<String, String> applications(int count) {
+        Map<String, String> applications = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            applications.put(configMapName(i), application(i));
+        }
+        return applications;
+    }
+
+    static String application(int module) {
+        return new JsonObject()
+                .put("apiVersion", "argoproj.io/v1alpha1")
+                .put("kind", "Application")
+                .put("metadata", new JsonObject()
+                        .put("name", applicationName(module))
+                        .put("namespace", "globex-gitops-{{ __user }}")
+                        .put("labels", new JsonObject().put("workshop/user", "{{ __user }}")))
+                .put("spec", new JsonObject()
+                        .put("project", "default")
+                        .put("source", new JsonObject()
+                                .put("repoURL", "https://github.com/rh-mad-workshop/workshop-modules.git")
+                                .put("targetRevision", "main")
+                                .put("path", "module-" + module)
+                                .put("helm", new JsonObject().put("values", "user: {{ __user }}\n"
+                                        + "namespace: module-" + module + "-{{ __user }}\n")))
+                        .put("destination", new JsonObject()
+                                .put("server", "https://kubernetes.default.svc")
+                                .put("namespace", "module-" + module + "-{{ __user }}"))
+                        .put("syncPolicy", new JsonObject()
+                                .put("automated", new JsonObject().put("prune", true).put("selfHeal", true))))
+                .encode();
+    }
+}
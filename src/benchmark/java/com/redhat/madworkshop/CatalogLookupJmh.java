@@ -0,0 +1,58 @@
+package com.redhat.madworkshop;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Module lookup by Application name, as done on every deploy and undeploy. The baseline is the lookup the catalog
+ * replaced: a scan over the modules array, each module with the 'applicationName' the old loader added to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CatalogLookupJmh {
+
+    @Param({"10", "50"})
+    int modules;
+
+    private ModuleCatalog catalog;
+
+    private JsonArray rawModules;
+
+    private String application;
+
+    @Setup
+    public void setup() {
+        JsonArray moduleArray = BenchmarkFixtures.modules(modules);
+        catalog = ModuleCatalog.of(moduleArray, BenchmarkFixtures.applications(modules));
+        rawModules = moduleArray.copy();
+        for (int i = 0; i < modules; i++) {
+            rawModules.getJsonObject(i).put("applicationName", BenchmarkFixtures.applicationName(i));
+        }
+        application = BenchmarkFixtures.applicationName(modules - 1);
+    }
+
+    @Benchmark
+    public Optional<ModuleDescriptor> catalogLookup() {
+        return catalog.getModule(application);
+    }
+
+    @Benchmark
+    public Optional<JsonObject> scanBaseline() {
+        return rawModules.stream().filter(o -> {
+            JsonObject m = (JsonObject) o;
+            return m.getString("applicationName").equals(application);
+        }).map(o -> (JsonObject) o).findFirst();
+    }
+}
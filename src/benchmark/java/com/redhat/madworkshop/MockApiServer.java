@@ -0,0 +1,132 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import io.vertx.core.json.JsonObject;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Starts the fabric8 CRUD mock server with the Argo Application resource and the module ConfigMaps, and points
+ * the Kubernetes client of the deployer at it. Every response is delayed by 'benchmark.latency.ms' (default 20)
+ * to approximate a loaded API server, and the calls are counted per verb and resource.
+ */
+public class MockApiServer implements QuarkusTestResourceLifecycleManager {
+
+    static final int MODULES = Integer.getInteger("benchmark.modules", 10);
+
+    private static final Map<String, LongAdder> CALLS = new ConcurrentHashMap<>();
+
+    private KubernetesMockServer server;
+
+    @Override
+    public Map<String, String> start() {
+        long latency = Long.getLong("benchmark.latency.ms", 20);
+        CustomResourceDefinitionContext applications = new CustomResourceDefinitionContext.Builder()
+                .withGroup("argoproj.io")
+                .withVersion("v1alpha1")
+                .withKind("Application")
+                .withPlural("applications")
+                .withScope("Namespaced")
+                .build();
+        // fully qualified: the Context nested in QuarkusTestResourceLifecycleManager hides the import
+        server = new KubernetesMockServer(new io.fabric8.mockwebserver.Context(), new MockWebServer(), new HashMap<>(),
+                new LatencyDispatcher(new KubernetesCrudDispatcher(List.of(applications)), latency), false);
+        server.init();
+
+        NamespacedKubernetesClient client = server.createClient();
+        client.namespaces().resource(new NamespaceBuilder().withNewMetadata()
+                .withName(BenchmarkFixtures.NAMESPACE).endMetadata().build()).create();
+        client.configMaps().inNamespace(BenchmarkFixtures.NAMESPACE).resource(new ConfigMapBuilder()
+                .withNewMetadata().withName(BenchmarkFixtures.MODULES_CONFIGMAP).endMetadata()
+                .addToData(BenchmarkFixtures.MODULES_KEY,
+                        new JsonObject().put("modules", BenchmarkFixtures.modules(MODULES)).encode())
+                .build()).create();
+        BenchmarkFixtures.applications(MODULES).forEach((name, application) ->
+                client.configMaps().inNamespace(BenchmarkFixtures.NAMESPACE).resource(new ConfigMapBuilder()
+                        .withNewMetadata().withName(name).endMetadata()
+                        .addToData(name + ".json", application)
+                        .build()).create());
+        String url = client.getConfiguration().getMasterUrl();
+        client.close();
+        resetCalls();
+
+        return Map.of("quarkus.kubernetes-client.api-server-url", url,
+                "quarkus.kubernetes-client.trust-certs", "true",
+                "quarkus.kubernetes-client.devservices.enabled", "false");
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.destroy();
+        }
+    }
+
+    static void resetCalls() {
+        CALLS.clear();
+    }
+
+    /**
+     * @return the number of API server calls per "VERB resource" since the last reset, sorted by key
+     */
+    static Map<String, Long> calls() {
+        Map<String, Long> calls = new TreeMap<>();
+        CALLS.forEach((key, count) -> calls.put(key, count.sum()));
+        return calls;
+    }
+
+    private static final class LatencyDispatcher extends Dispatcher {
+
+        private final Dispatcher delegate;
+
+        private final long latency;
+
+        LatencyDispatcher(Dispatcher delegate, long latency) {
+            this.delegate = delegate;
+            this.latency = latency;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String path = request.getPath();
+            boolean watch = path.contains("watch=true");
+            CALLS.computeIfAbsent((watch ? "WATCH" : request.getMethod()) + " " + resource(path),
+                    k -> new LongAdder()).increment();
+            MockResponse response = delegate.dispatch(request);
+            return watch ? response : response.setHeadersDelay(latency, TimeUnit.MILLISECONDS);
+        }
+
+        // /api/v1/namespaces/{ns}/configmaps/{name} -> configmaps, /api/v1/namespaces/{name} -> namespaces
+        private static String resource(String path) {
+            int query = path.indexOf('?');
+            String[] segments = (query < 0 ? path : path.substring(0, query)).split("/");
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals("namespaces") && i + 2 < segments.length) {
+                    return segments[i + 2];
+                }
+            }
+            for (int i = segments.length - 1; i >= 0; i--) {
+                if (segments[i].matches("[a-z]+s")) {
+                    return segments[i];
+                }
+            }
+            return path;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the Application and the namespace names of a module for a user. Substituting the placeholder
+ * with a regex and parsing the result again is the rendering the templates replaced and serves as baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TemplateRenderJmh {
+
+    private final KubernetesSerialization serialization = new KubernetesSerialization();
+
+    private ModuleDescriptor module;
+
+    private String application;
+
+    private int user;
+
+    @Setup
+    public void setup() {
+        application = BenchmarkFixtures.application(0);
+        module = ModuleCatalog.of(BenchmarkFixtures.modules(1), BenchmarkFixtures.applications(1))
+                .getModule(BenchmarkFixtures.applicationName(0)).orElseThrow();
+    }
+
+    @Benchmark
+    public GenericKubernetesResource renderApplication() {
+        return module.application().render(nextUser(), serialization);
+    }
+
+    @Benchmark
+    public GenericKubernetesResource renderApplicationBaseline() {
+        return serialization.unmarshal(application.replaceAll("\\{\\{ __user }}", nextUser()),
+                GenericKubernetesResource.class);
+    }
+
+    @Benchmark
+    public List<String> renderNamespaces() {
+        return module.namespacesFor(nextUser());
+    }
+
+    private String nextUser() {
+        return "user" + (user++ & 511);
+    }
+}
@@ -0,0 +1,26 @@
+package com.redhat.madworkshop;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+import java.util.Map;
+
+/**
+ * The scenarios of {@link WorkshopLoadBenchmark} with the blocking calls on the bounded Quarkus worker pool, to
+ * compare the latency percentiles with the virtual thread model.
+ */
+@QuarkusTest
+@QuarkusTestResource(MockApiServer.class)
+@TestProfile(WorkerPoolLoadBenchmark.WorkerPool.class)
+class WorkerPoolLoadBenchmark extends WorkshopLoadBenchmark {
+
+    public static class WorkerPool implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("blocking.execution", "worker-pool");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.redhat.madworkshop;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.core.json.JsonObject;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Scripted load scenarios against the deployer running on the mock API server of {@link MockApiServer}.
+ * For every user count in 'benchmark.users' (default 100,300,500) it runs:
+ * <ul>
+ *     <li>deploy burst: every user deploys a module at the same moment</li>
+ *     <li>polling: every user polls /api/modules with If-None-Match every 'benchmark.poll.interval.ms'
+ *     (default 10s) for 'benchmark.poll.duration.ms' (default 60s)</li>
+ *     <li>mass undeploy: every user undeploys the module at the same moment</li>
+ * </ul>
+ * The report lists throughput, latency percentiles and API server calls per scenario. The blocking calls run
+ * on virtual threads here, {@link WorkerPoolLoadBenchmark} runs the same scenarios on the worker pool.
+ */
+@QuarkusTest
+@QuarkusTestResource(MockApiServer.class)
+class WorkshopLoadBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkshopLoadBenchmark.class);
+
+    private static final List<Integer> USERS = Arrays.stream(System.getProperty("benchmark.users", "100,300,500")
+            .split(",")).map(String::trim).map(Integer::parseInt).toList();
+
+    private static final long POLL_INTERVAL = Long.getLong("benchmark.poll.interval.ms", 10_000);
+
+    private static final long POLL_DURATION = Long.getLong("benchmark.poll.duration.ms", 60_000);
+
+    private static final long SETTLE_TIMEOUT = Long.getLong("benchmark.settle.timeout.ms", 120_000);
+
+    private static final String APPLICATION = BenchmarkFixtures.applicationName(1);
+
+    private static final HttpClient HTTP = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @TestHTTPResource("/api")
+    URI api;
+
+    @Inject
+    ApplicationCache applicationCache;
+
+    @Inject
+    DeletionReconciler deletionReconciler;
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    @Inject
+    BlockingExecution blockingExecution;
+
+    @AfterAll
+    static void close() {
+        HTTP.close();
+    }
+
+    @Test
+    void scenarios() throws Exception {
+        applicationCache.synced().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        catalogLoader.loaded().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        List<ScenarioResult> results = new ArrayList<>();
+        for (int users : USERS) {
+            List<String> userNames = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                userNames.add("load" + users + "-user" + i);
+            }
+            results.add(deployBurst(userNames));
+            results.add(polling(userNames));
+            results.add(massUndeploy(userNames));
+        }
+        StringBuilder report = new StringBuilder("Load benchmark on ").append(blockingExecution.model())
+                .append(" with latency ")
+                .append(Long.getLong("benchmark.latency.ms", 20)).append(" ms and ")
+                .append(MockApiServer.MODULES).append(" modules");
+        results.forEach(r -> report.append('\n').append(r.format()));
+        LOGGER.info(report.toString());
+    }
+
+    private ScenarioResult deployBurst(List<String> users) {
+        MockApiServer.resetCalls();
+        long start = System.nanoTime();
+        List<Sample> samples = users.stream()
+                .map(user -> post("/deploy", user, new JsonObject().put("application", APPLICATION)))
+                .toList().stream().map(CompletableFuture::join).toList();
+        long settled = awaitSettled(() -> users.stream()
+                .allMatch(user -> applicationCache.getApplication(user, APPLICATION) != null), start);
+        return ScenarioResult.of("deploy burst", users.size(), samples, System.nanoTime() - start, settled);
+    }
+
+    private ScenarioResult polling(List<String> users) throws InterruptedException {
+        MockApiServer.resetCalls();
+        Queue<CompletableFuture<Sample>> requests = new ConcurrentLinkedQueue<>();
+        // sent back like the UI does, so unchanged module lists are answered with 304
+        Map<String, String> etags = new ConcurrentHashMap<>();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        long start = System.nanoTime();
+        List<ScheduledFuture<?>> pollers = users.stream()
+                .<ScheduledFuture<?>>map(user -> scheduler.scheduleAtFixedRate(
+                        () -> requests.add(poll("/modules", user, etags)),
+                        ThreadLocalRandom.current().nextLong(POLL_INTERVAL), POLL_INTERVAL, TimeUnit.MILLISECONDS))
+                .toList();
+        Thread.sleep(POLL_DURATION);
+        pollers.forEach(p -> p.cancel(false));
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        List<Sample> samples = requests.stream().map(CompletableFuture::join).toList();
+        return ScenarioResult.of("polling", users.size(), samples, System.nanoTime() - start, -1);
+    }
+
+    private ScenarioResult massUndeploy(List<String> users) {
+        MockApiServer.resetCalls();
+        long start = System.nanoTime();
+        List<Sample> samples = users.stream()
+                .map(user -> post("/undeploy", user, new JsonObject().put("application", APPLICATION)))
+                .toList().stream().map(CompletableFuture::join).toList();
+        // settled once the namespaces of all modules are deleted
+        long settled = awaitSettled(() -> users.stream()
+                .allMatch(user -> applicationCache.getApplication(user, APPLICATION) == null)
+                && deletionReconciler.pendingCount() == 0, start);
+        return ScenarioResult.of("mass undeploy", users.size(), samples, System.nanoTime() - start, settled);
+    }
+
+    private long awaitSettled(BooleanSupplier settled, long start) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SETTLE_TIMEOUT);
+        while (!settled.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                LOGGER.warn("Scenario did not settle within " + SETTLE_TIMEOUT + " ms");
+                return -1;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private CompletableFuture<Sample> poll(String path, String user, Map<String, String> etags) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(api + path)).GET();
+        String etag = etags.get(user);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        long start = System.nanoTime();
+        return HTTP.sendAsync(request.header("X-Forwarded-User", user).timeout(Duration.ofSeconds(60)).build(),
+                        HttpResponse.BodyHandlers.discarding())
+                .handle((response, t) -> {
+                    if (t == null) {
+                        response.headers().firstValue("ETag").ifPresent(e -> etags.put(user, e));
+                    }
+                    return new Sample(System.nanoTime() - start,
+                            t == null && (response.statusCode() < 300 || response.statusCode() == 304));
+                });
+    }
+
+    private CompletableFuture<Sample> post(String path, String user, JsonObject body) {
+        return send(HttpRequest.newBuilder(URI.create(api + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.encode())), user);
+    }
+
+    private static CompletableFuture<Sample> send(HttpRequest.Builder request, String user) {
+        long start = System.nanoTime();
+        return HTTP.sendAsync(request.header("X-Forwarded-User", user).timeout(Duration.ofSeconds(60)).build(),
+                        HttpResponse.BodyHandlers.discarding())
+                .handle((response, t) -> new Sample(System.nanoTime() - start,
+                        t == null && response.statusCode() < 300));
+    }
+
+    private record Sample(long nanos, boolean success) {
+    }
+
+    private record ScenarioResult(String name, int users, int requests, long errors, long wallNanos,
+            long settledNanos, long[] latencies, Map<String, Long> calls) {
+
+        static ScenarioResult of(String name, int users, List<Sample> samples, long wallNanos, long settledNanos) {
+            long[] latencies = samples.stream().mapToLong(Sample::nanos).sorted().toArray();
+            long errors = samples.stream().filter(s -> !s.success()).count();
+            return new ScenarioResult(name, users, samples.size(), errors, wallNanos, settledNanos, latencies,
+                    MockApiServer.calls());
+        }
+
+        String format() {
+            long apiCalls = calls.values().stream().mapToLong(Long::longValue).sum();
+            return String.format("%-14s users=%4d requests=%6d errors=%4d throughput=%8.1f req/s "
+                            + "p50=%7.1f p95=%7.1f p99=%7.1f max=%7.1f ms settled=%8s api-calls=%6d %s",
+                    name, users, requests, errors, requests / (wallNanos / 1e9),
+                    percentile(0.50), percentile(0.95), percentile(0.99), percentile(1.0),
+                    settledNanos < 0 ? "-" : settledNanos / 1_000_000 + "ms", apiCalls, calls);
+        }
+
+        private double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
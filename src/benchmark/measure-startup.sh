@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+#
+# Measures the time until the deployer is ready and its resident memory, for the JVM build and the native build.
+# Runs against the cluster of the current kubeconfig context, with the environment described in the README.
+#
+#   mvn package && mvn package -Dnative
+#   TEST_USER=user1 src/benchmark/measure-startup.sh
+#
+# RUNS (default 5) starts per build, REQUESTS (default 200) /api/modules requests before the RSS is taken again.
+
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+REQUESTS=${REQUESTS:-200}
+PORT=${PORT:-8080}
+JVM_CMD=${JVM_CMD:-"java -jar target/quarkus-app/quarkus-run.jar"}
+NATIVE_CMD=${NATIVE_CMD:-"$(ls target/*-runner 2>/dev/null | head -1)"}
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+rss_mb() {
+  awk '/VmRSS/ { printf "%.1f", $2 / 1024 }' "/proc/$1/status"
+}
+
+measure() {
+  local name=$1 cmd=$2
+  if [ -z "$cmd" ]; then
+    echo "$name: no build found, skipped"
+    return
+  fi
+  for run in $(seq "$RUNS"); do
+    local log="target/startup-$name-$run.log"
+    if curl -s -o /dev/null "http://localhost:$PORT/"; then
+      echo "$name: port $PORT is already in use"
+      return 1
+    fi
+    local start
+    start=$(now_ms)
+    # set through the environment: a -D after 'java -jar <jar>' would be a program argument, not a system property
+    QUARKUS_HTTP_PORT="$PORT" $cmd > "$log" 2>&1 &
+    local pid=$!
+    # ready means the catalog is loaded and the Application informer synced
+    until curl -sf "http://localhost:$PORT/q/health/ready" > /dev/null; do
+      if ! kill -0 "$pid" 2> /dev/null; then
+        echo "$name: process exited, see $log"
+        return 1
+      fi
+      sleep 0.02
+    done
+    local ready=$(( $(now_ms) - start ))
+    local started
+    started=$(grep -o 'started in [0-9.]*s' "$log" | head -1 | awk '{ print $3 }')
+    local rss_ready
+    rss_ready=$(rss_mb "$pid")
+    for _ in $(seq "$REQUESTS"); do
+      curl -sf -H "X-Forwarded-User: ${TEST_USER:-user1}" "http://localhost:$PORT/api/modules" > /dev/null || true
+    done
+    local rss_loaded
+    rss_loaded=$(rss_mb "$pid")
+    kill "$pid"
+    wait "$pid" || true
+    printf '%-6s run=%d started=%-7s ready=%6d ms rss-ready=%7s MB rss-after-%d-requests=%7s MB\n' \
+      "$name" "$run" "$started" "$ready" "$rss_ready" "$REQUESTS" "$rss_loaded"
+  done
+}
+
+mkdir -p target
+measure jvm "$JVM_CMD"
+measure native "$NATIVE_CMD"
@@ -0,0 +1,243 @@
+package com.redhat.madworkshop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Endpoints for workshop facilitators. Access is restricted to the users listed in 'ADMIN_USERS'.
+ */
+@Path("/api/admin")
+public class AdminResource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdminResource.class);
+
+    @Inject
+    DeploymentJobs deploymentJobs;
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    DashboardAggregator dashboardAggregator;
+
+    private Set<String> adminUsers;
+
+    private int bulkConcurrency;
+
+    private int bulkMaxUsers;
+
+    private TokenBucket bulkRateLimiter;
+
+    private ExecutorService bulkExecutor;
+
+    void onStart(@Observes StartupEvent ev) {
+        adminUsers = Arrays.stream(System.getenv().getOrDefault("ADMIN_USERS", "").split(","))
+                .map(String::trim).filter(u -> !u.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        String concurrencyStr = System.getenv().getOrDefault("BULK_CONCURRENCY", "10");
+        String rateStr = System.getenv().getOrDefault("BULK_OPERATIONS_PER_SECOND", "5");
+        String maxUsersStr = System.getenv().getOrDefault("BULK_MAX_USERS", "1000");
+        if (!concurrencyStr.matches("\\d+") || Integer.parseInt(concurrencyStr) == 0) {
+            throw new RuntimeException("Environment variable 'BULK_CONCURRENCY' is not a positive number.");
+        }
+        if (!rateStr.matches("\\d+(\\.\\d+)?") || Double.parseDouble(rateStr) <= 0) {
+            throw new RuntimeException("Environment variable 'BULK_OPERATIONS_PER_SECOND' is not a positive number.");
+        }
+        if (!maxUsersStr.matches("\\d+") || Integer.parseInt(maxUsersStr) == 0) {
+            throw new RuntimeException("Environment variable 'BULK_MAX_USERS' is not a positive number.");
+        }
+        bulkConcurrency = Integer.parseInt(concurrencyStr);
+        bulkMaxUsers = Integer.parseInt(maxUsersStr);
+        bulkRateLimiter = new TokenBucket(Double.parseDouble(rateStr), Math.max(1, Double.parseDouble(rateStr)));
+        bulkExecutor = ExecutorServiceMetrics.monitor(registry, Executors.newVirtualThreadPerTaskExecutor(), "bulk");
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (bulkExecutor != null) {
+            bulkExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Deploys or undeploys a set of applications for a set of users. The users are either given as a list in
+     * 'users', or as a range with 'userPrefix', 'from' and 'to' (e.g. user1 to user300). Without 'applications'
+     * the default modules are used. Progress is streamed back with one event per user and application.
+     */
+    @POST
+    @Path("/bulk")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<String> bulk(String input, @Context HttpHeaders headers) {
+        String admin = requireAdmin(headers);
+        JsonObject request;
+        try {
+            request = new JsonObject(input);
+        } catch (Exception e) {
+            throw new BadRequestException("Request body is not valid JSON");
+        }
+        String action = request.getString("action", "deploy");
+        if (!action.equals("deploy") && !action.equals("undeploy")) {
+            throw new BadRequestException("Unknown action '" + action + "'");
+        }
+        List<String> users = users(request);
+        List<String> applications = applications(request);
+        Integer requestedConcurrency = integer(request, "concurrency");
+        int concurrency = requestedConcurrency == null
+                ? bulkConcurrency : Math.min(bulkConcurrency, requestedConcurrency);
+        if (concurrency < 1) {
+            throw new BadRequestException("'concurrency' must be at least 1");
+        }
+
+        List<String[]> work = new ArrayList<>(users.size() * applications.size());
+        users.forEach(user -> applications.forEach(application -> work.add(new String[] { user, application })));
+        LOGGER.info("User '" + admin + "' started bulk " + action + " of " + applications + " for "
+                + users.size() + " users");
+
+        int total = work.size();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        return Multi.createFrom().iterable(work)
+                .onItem().transformToUni(item -> Uni.createFrom().item(() -> {
+                            try {
+                                bulkRateLimiter.acquire();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new RuntimeException(e);
+                            }
+                            // joins a deploy or undeploy the user started at the same time
+                            return deploymentJobs.submit(item[0], item[1], action.equals("deploy")
+                                    ? DeploymentJob.Action.DEPLOY : DeploymentJob.Action.UNDEPLOY).result().join();
+                        })
+                        .runSubscriptionOn(bulkExecutor)
+                        // the API server is overloaded, back off instead of failing the operation
+                        .onFailure(AdminResource::isShed).retry()
+                        .withBackOff(Duration.ofSeconds(1), Duration.ofSeconds(30)).atMost(5)
+                        .onItem().transform(result -> new JsonObject().put("status", result.getString("status")))
+                        .onFailure(DeploymentJobs.RejectedException.class).recoverWithItem(throwable ->
+                                new JsonObject().put("status", "rejected")
+                                        .put("error", ((DeploymentJobs.RejectedException) throwable).reason()))
+                        .onFailure().recoverWithItem(throwable -> {
+                            Throwable cause = throwable instanceof CompletionException
+                                    ? throwable.getCause() : throwable;
+                            LOGGER.error("Bulk " + action + " of '" + item[1] + "' failed for user '" + item[0] + "'",
+                                    cause);
+                            failed.incrementAndGet();
+                            return new JsonObject().put("status", "error").put("error", cause.getMessage());
+                        })
+                        .onItem().transform(result -> result.put("user", item[0]).put("application", item[1])
+                                .put("completed", completed.incrementAndGet()).put("total", total)))
+                .merge(concurrency)
+                .onItem().transform(JsonObject::toString)
+                .onCompletion().invoke(() -> LOGGER.info("Bulk " + action + " finished: " + total + " operations, "
+                        + failed.get() + " failed"));
+    }
+
+    /**
+     * Counts of the Applications per module and sync/health state, unhealthy Applications, deletions which take
+     * longer than 'STUCK_DELETION_THRESHOLD_MS' and users with more modules than allowed.
+     */
+    @GET
+    @Path("/dashboard")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response dashboard(@Context HttpHeaders headers) {
+        requireAdmin(headers);
+        return Response.ok(dashboardAggregator.snapshot().encode()).build();
+    }
+
+    private String requireAdmin(HttpHeaders headers) {
+        String admin = WorkshopDeployer.getUser(headers);
+        if (!adminUsers.contains(admin)) {
+            LOGGER.warn("User '" + admin + "' is not allowed to use the admin endpoints");
+            throw new WebApplicationException(Response.Status.FORBIDDEN);
+        }
+        return admin;
+    }
+
+    private static boolean isShed(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        return cause instanceof ApiServerUnavailableException;
+    }
+
+    private List<String> users(JsonObject request) {
+        JsonArray users = request.getJsonArray("users");
+        if (users != null) {
+            if (users.size() > bulkMaxUsers) {
+                throw new BadRequestException("At most " + bulkMaxUsers + " users are allowed");
+            }
+            return users.stream().map(String::valueOf).toList();
+        }
+        String prefix = request.getString("userPrefix");
+        Integer from = integer(request, "from");
+        Integer to = integer(request, "to");
+        if (prefix == null || from == null || to == null || from > to) {
+            throw new BadRequestException("Either 'users' or 'userPrefix', 'from' and 'to' must be given");
+        }
+        if ((long) to - from + 1 > bulkMaxUsers) {
+            throw new BadRequestException("At most " + bulkMaxUsers + " users are allowed");
+        }
+        List<String> result = new ArrayList<>(to - from + 1);
+        for (int i = from; i <= to; i++) {
+            result.add(prefix + i);
+        }
+        return result;
+    }
+
+    /**
+     * @return the integral number of the field, null if it is not set
+     * @throws BadRequestException if the field is not an integral number, e.g. a string or 2.5
+     */
+    private static Integer integer(JsonObject request, String key) {
+        Object value = request.getValue(key);
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Number number) || number.doubleValue() != Math.rint(number.doubleValue())
+                || number.doubleValue() < Integer.MIN_VALUE || number.doubleValue() > Integer.MAX_VALUE) {
+            throw new BadRequestException("'" + key + "' must be an integer");
+        }
+        return number.intValue();
+    }
+
+    private List<String> applications(JsonObject request) {
+        JsonArray applications = request.getJsonArray("applications");
+        if (applications == null) {
+            return catalogLoader.catalog().modules().stream()
+                    .filter(ModuleDescriptor::isDefault).map(ModuleDescriptor::applicationName).toList();
+        }
+        List<String> result = applications.stream().map(String::valueOf).toList();
+        result.stream().filter(a -> catalogLoader.getModule(a).isEmpty()).findFirst().ifPresent(a -> {
+            throw new BadRequestException("Unknown application '" + a + "'");
+        });
+        return result;
+    }
+}
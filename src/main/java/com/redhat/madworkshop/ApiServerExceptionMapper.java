@@ -0,0 +1,33 @@
+package com.redhat.madworkshop;
+
+import io.vertx.core.json.JsonObject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sheds load while the API server is unavailable: the request is answered with 429 and a Retry-After, so
+ * clients back off instead of retrying at once.
+ */
+public class ApiServerExceptionMapper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApiServerExceptionMapper.class);
+
+    @ServerExceptionMapper
+    public Response map(ApiServerUnavailableException e) {
+        return tooManyRequests(e);
+    }
+
+    static Response tooManyRequests(ApiServerUnavailableException e) {
+        LOGGER.warn("Request rejected: " + e.getMessage());
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, e.retryAfterSeconds())
+                .type(MediaType.APPLICATION_JSON)
+                .entity(new JsonObject().put("status", "error").put("error", "API_SERVER_UNAVAILABLE")
+                        .put("message", e.getMessage()).encode())
+                .build();
+    }
+}
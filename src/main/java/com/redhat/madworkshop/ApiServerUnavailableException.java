@@ -0,0 +1,19 @@
+package com.redhat.madworkshop;
+
+/**
+ * A call to the API server which was not sent, because the circuit breaker is open or the calls towards the
+ * API server exceed their rate or concurrency for too long. Answered with 429 and Retry-After.
+ */
+public class ApiServerUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ApiServerUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,216 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Shared informer on Argo CD Applications in the per-user Argo namespaces.
+ * Serves Application lookups from memory instead of listing against the API server on every request.
+ */
+@Startup
+@ApplicationScoped
+public class ApplicationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationCache.class);
+
+    static final ResourceDefinitionContext APPLICATION_CONTEXT = new ResourceDefinitionContext.Builder()
+            .withGroup("argoproj.io")
+            .withVersion("v1alpha1")
+            .withKind("Application")
+            .withPlural("applications")
+            .withNamespaced(true)
+            .build();
+
+    private static final String USER_INDEX = "user";
+
+    @Inject
+    OpenShiftClient client;
+
+    @Inject
+    MeterRegistry registry;
+
+    private String argoApplicationNamespace;
+
+    private SharedIndexInformer<GenericKubernetesResource> informer;
+
+    private CompletionStage<Void> synced;
+
+    private volatile long lastEventMillis = System.currentTimeMillis();
+
+    private Counter addEvents;
+
+    private Counter updateEvents;
+
+    private Counter deleteEvents;
+
+    private final Map<String, Set<ApplicationListener>> userListeners = new ConcurrentHashMap<>();
+
+    private final List<ApplicationListener> listeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void init() {
+        argoApplicationNamespace = System.getenv("ARGO_NAMESPACE_PREFIX");
+
+        addEvents = registry.counter("workshop.applications.cache.events", "type", "add");
+        updateEvents = registry.counter("workshop.applications.cache.events", "type", "update");
+        deleteEvents = registry.counter("workshop.applications.cache.events", "type", "delete");
+
+        LOGGER.info("Starting Application informer for namespaces '" + argoApplicationNamespace + "-*'");
+        informer = client.genericKubernetesResources(APPLICATION_CONTEXT).inAnyNamespace().runnableInformer(0);
+        informer.addIndexers(Map.of(USER_INDEX, this::userIndex));
+        informer.addEventHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(GenericKubernetesResource obj) {
+                lastEventMillis = System.currentTimeMillis();
+                addEvents.increment();
+                notifyListeners(obj, false);
+            }
+
+            @Override
+            public void onUpdate(GenericKubernetesResource oldObj, GenericKubernetesResource newObj) {
+                lastEventMillis = System.currentTimeMillis();
+                updateEvents.increment();
+                notifyListeners(newObj, false);
+            }
+
+            @Override
+            public void onDelete(GenericKubernetesResource obj, boolean deletedFinalStateUnknown) {
+                lastEventMillis = System.currentTimeMillis();
+                deleteEvents.increment();
+                notifyListeners(obj, true);
+            }
+        });
+        synced = informer.start();
+        synced.whenComplete((v, t) -> {
+            if (t != null) {
+                LOGGER.error("Application informer failed to start", t);
+            } else {
+                LOGGER.info("Application informer synced with " + informer.getStore().list().size() + " applications");
+            }
+        });
+
+        // counts the keys, list() would copy every cached Application on each scrape
+        Gauge.builder("workshop.applications.cache.size", informer, i -> i.getStore().listKeys().size())
+                .description("Number of Argo Applications held in the informer cache")
+                .register(registry);
+        Gauge.builder("workshop.applications.cache.synced", informer, i -> i.hasSynced() ? 1 : 0)
+                .description("Whether the Application informer completed its initial list")
+                .register(registry);
+        Gauge.builder("workshop.applications.cache.watching", informer, i -> i.isWatching() ? 1 : 0)
+                .description("Whether the Application informer watch is currently connected")
+                .register(registry);
+        Gauge.builder("workshop.applications.cache.last.event.age.seconds", this,
+                        c -> (System.currentTimeMillis() - c.lastEventMillis) / 1000.0)
+                .description("Seconds since the Application informer received its last event")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (informer != null) {
+            informer.stop();
+        }
+    }
+
+    public boolean hasSynced() {
+        return informer != null && informer.hasSynced();
+    }
+
+    /**
+     * @return completes once the informer has done its initial list
+     */
+    public CompletionStage<Void> synced() {
+        return synced;
+    }
+
+    public List<GenericKubernetesResource> applicationsForUser(String user) {
+        return informer.getIndexer().byIndex(USER_INDEX, user);
+    }
+
+    public List<GenericKubernetesResource> allApplications() {
+        return informer.getStore().list();
+    }
+
+    public GenericKubernetesResource getApplication(String user, String application) {
+        return informer.getStore().getByKey(argoNamespace(user) + "/" + application);
+    }
+
+    /**
+     * Registers a listener for Application changes in the Argo namespace of a user.
+     *
+     * @return a handle which removes the listener again
+     */
+    public Runnable subscribe(String user, ApplicationListener listener) {
+        userListeners.computeIfAbsent(user, u -> ConcurrentHashMap.newKeySet()).add(listener);
+        return () -> userListeners.computeIfPresent(user, (u, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    /**
+     * Registers a listener for Application changes in the Argo namespaces of all users.
+     */
+    public void subscribe(ApplicationListener listener) {
+        listeners.add(listener);
+    }
+
+    public String argoNamespace(String user) {
+        return argoApplicationNamespace + "-" + user;
+    }
+
+    private void notifyListeners(GenericKubernetesResource resource, boolean deleted) {
+        String user = userForNamespace(resource.getMetadata().getNamespace());
+        if (user == null) {
+            return;
+        }
+        Set<ApplicationListener> forUser = userListeners.getOrDefault(user, Set.of());
+        Stream.concat(listeners.stream(), forUser.stream()).forEach(listener -> {
+            try {
+                listener.onChange(resource, deleted);
+            } catch (Exception e) {
+                LOGGER.error("Exception in Application listener for user " + user, e);
+            }
+        });
+    }
+
+    private List<String> userIndex(GenericKubernetesResource resource) {
+        String user = userForNamespace(resource.getMetadata().getNamespace());
+        return user == null ? List.of() : List.of(user);
+    }
+
+    String userForNamespace(String namespace) {
+        String prefix = argoApplicationNamespace + "-";
+        if (namespace == null || !namespace.startsWith(prefix) || namespace.length() == prefix.length()) {
+            return null;
+        }
+        return namespace.substring(prefix.length());
+    }
+
+    @FunctionalInterface
+    public interface ApplicationListener {
+
+        void onChange(GenericKubernetesResource application, boolean deleted);
+    }
+}
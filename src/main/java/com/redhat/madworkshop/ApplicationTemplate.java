@@ -0,0 +1,93 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Argo Application definition parsed once into a tree in which every string containing the
+ * '{{ __user }}' placeholder is a {@link UserTemplate}. Rendering copies the tree and fills in the user,
+ * without going through text substitution and parsing again.
+ */
+public final class ApplicationTemplate {
+
+    private final Map<String, Object> root;
+
+    private ApplicationTemplate(Map<String, Object> root) {
+        this.root = root;
+    }
+
+    public static ApplicationTemplate compile(String application) {
+        return new ApplicationTemplate(compileObject(new JsonObject(application).getMap()));
+    }
+
+    public GenericKubernetesResource render(String user, KubernetesSerialization serialization) {
+        Map<String, Object> rendered = renderObject(root, user);
+        GenericKubernetesResource resource = new GenericKubernetesResource();
+        resource.setApiVersion((String) rendered.remove("apiVersion"));
+        resource.setKind((String) rendered.remove("kind"));
+        Object metadata = rendered.remove("metadata");
+        if (metadata != null) {
+            resource.setMetadata(serialization.convertValue(metadata, ObjectMeta.class));
+        }
+        rendered.forEach(resource::setAdditionalProperty);
+        return resource;
+    }
+
+    private static Map<String, Object> compileObject(Map<String, Object> object) {
+        Map<String, Object> compiled = new LinkedHashMap<>();
+        object.forEach((key, value) -> compiled.put(key, compile(value)));
+        return compiled;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object compile(Object value) {
+        if (value instanceof JsonObject jsonObject) {
+            return compileObject(jsonObject.getMap());
+        } else if (value instanceof Map<?, ?> map) {
+            return compileObject((Map<String, Object>) map);
+        } else if (value instanceof JsonArray jsonArray) {
+            return compileArray(jsonArray.getList());
+        } else if (value instanceof List<?> list) {
+            return compileArray(list);
+        } else if (value instanceof String string) {
+            UserTemplate template = UserTemplate.compile(string);
+            return template.hasPlaceholder() ? template : string;
+        }
+        return value;
+    }
+
+    private static List<Object> compileArray(List<?> array) {
+        List<Object> compiled = new ArrayList<>(array.size());
+        array.forEach(value -> compiled.add(compile(value)));
+        return compiled;
+    }
+
+    private static Map<String, Object> renderObject(Map<String, Object> object, String user) {
+        Map<String, Object> rendered = new LinkedHashMap<>(object.size() * 2);
+        object.forEach((key, value) -> rendered.put(key, render(value, user)));
+        return rendered;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object render(Object value, String user) {
+        if (value instanceof UserTemplate template) {
+            return template.render(user);
+        } else if (value instanceof Map<?, ?> map) {
+            return renderObject((Map<String, Object>) map, user);
+        } else if (value instanceof List<?> list) {
+            List<Object> rendered = new ArrayList<>(list.size());
+            list.forEach(v -> rendered.add(render(v, user)));
+            return rendered;
+        }
+        // strings, numbers and booleans are immutable and can be shared
+        return value;
+    }
+}
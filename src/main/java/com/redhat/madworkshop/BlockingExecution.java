@@ -0,0 +1,111 @@
+package com.redhat.madworkshop;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.quarkus.runtime.ShutdownEvent;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the blocking Kubernetes paths of the REST endpoints and the deployment jobs. 'BLOCKING_EXECUTION'
+ * selects 'virtual-threads' (default), or 'worker-pool' for the bounded Quarkus worker pool which was used before,
+ * so both models can be compared with the load benchmark. On the worker pool, the tasks waiting for and running on
+ * a worker thread are exposed as 'workshop.worker.pool.queued' and 'workshop.worker.pool.active'.
+ */
+@ApplicationScoped
+public class BlockingExecution {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlockingExecution.class);
+
+    public enum Model {
+        VIRTUAL_THREADS, WORKER_POOL
+    }
+
+    @Inject
+    MeterRegistry registry;
+
+    private Model model;
+
+    private final List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger workerPoolQueued = new AtomicInteger();
+
+    private final AtomicInteger workerPoolActive = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        // read through the config, which includes the environment, so a test profile can switch the model
+        String modelStr = ConfigProvider.getConfig().getOptionalValue("blocking.execution", String.class)
+                .orElse("virtual-threads");
+        model = switch (modelStr) {
+            case "virtual-threads" -> Model.VIRTUAL_THREADS;
+            case "worker-pool" -> Model.WORKER_POOL;
+            default -> throw new RuntimeException(
+                    "Environment variable 'BLOCKING_EXECUTION' is neither 'virtual-threads' nor 'worker-pool'.");
+        };
+        LOGGER.info("Blocking calls run on " + modelStr);
+        if (model == Model.WORKER_POOL) {
+            Gauge.builder("workshop.worker.pool.queued", workerPoolQueued, AtomicInteger::get)
+                    .description("Number of blocking tasks waiting for a worker thread")
+                    .register(registry);
+            Gauge.builder("workshop.worker.pool.active", workerPoolActive, AtomicInteger::get)
+                    .description("Number of blocking tasks running on a worker thread")
+                    .register(registry);
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        executors.forEach(ExecutorService::shutdown);
+    }
+
+    public Model model() {
+        return model;
+    }
+
+    /**
+     * @param name the name of the executor metrics of the virtual thread executor
+     * @return a new virtual thread executor, or the shared worker pool counted by the worker pool gauges
+     */
+    public Executor executor(String name) {
+        if (model == Model.WORKER_POOL) {
+            return this::executeOnWorkerPool;
+        }
+        ExecutorService executor = ExecutorServiceMetrics.monitor(registry, Executors.newVirtualThreadPerTaskExecutor(),
+                name);
+        executors.add(executor);
+        return executor;
+    }
+
+    private void executeOnWorkerPool(Runnable task) {
+        workerPoolQueued.incrementAndGet();
+        try {
+            Infrastructure.getDefaultWorkerPool().execute(() -> {
+                workerPoolQueued.decrementAndGet();
+                workerPoolActive.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    workerPoolActive.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            workerPoolQueued.decrementAndGet();
+            throw e;
+        }
+    }
+}
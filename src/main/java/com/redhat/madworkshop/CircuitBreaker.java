@@ -0,0 +1,134 @@
+package com.redhat.madworkshop;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker which opens after a number of consecutive failures. While open, calls are rejected; once
+ * the open period is over a single trial call is let through, which closes the breaker again on success.
+ * <p>
+ * Every admitted call gets a {@link Permit} stamped with the generation of the breaker, which changes whenever
+ * the breaker opens or closes. Outcomes of calls admitted before such a change are ignored, so the calls still
+ * in flight when the breaker opened cannot close it again; only the trial call can.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    /**
+     * Admission of a single call, its outcome is reported with onSuccess, onFailure or onIgnored.
+     */
+    public record Permit(long generation, boolean trial) {
+    }
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+
+    private long generation;
+
+    private int consecutiveFailures;
+
+    private long openUntil;
+
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        if (failureThreshold < 1 || openMillis < 1) {
+            throw new IllegalArgumentException("Failure threshold and open period must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return whether calls are rejected right now, without taking the trial call of a half-open breaker
+     */
+    public synchronized boolean isRejecting() {
+        return switch (state) {
+            case CLOSED -> false;
+            case OPEN -> clock.getAsLong() < openUntil;
+            case HALF_OPEN -> trialInFlight;
+        };
+    }
+
+    /**
+     * @return the permit of the call, or null if the call is rejected
+     */
+    public synchronized Permit tryAcquirePermission() {
+        if (state == State.OPEN && clock.getAsLong() >= openUntil) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return switch (state) {
+            case CLOSED -> new Permit(generation, false);
+            case OPEN -> null;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield null;
+                }
+                trialInFlight = true;
+                yield new Permit(generation, true);
+            }
+        };
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (permit.generation() != generation) {
+            return;
+        }
+        if (permit.trial()) {
+            transition(State.CLOSED);
+        } else {
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (permit.generation() != generation) {
+            return;
+        }
+        if (permit.trial() || ++consecutiveFailures >= failureThreshold) {
+            openUntil = clock.getAsLong() + openMillis;
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * For calls whose outcome says nothing about the API server, e.g. a bug in the caller. A trial call ending
+     * like this lets the next call be the trial.
+     */
+    public synchronized void onIgnored(Permit permit) {
+        if (permit.generation() == generation && permit.trial()) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * @return the milliseconds until the breaker lets a trial call through, 0 if it is not open
+     */
+    public synchronized long millisUntilRetry() {
+        return state == State.OPEN ? Math.max(0, openUntil - clock.getAsLong()) : 0;
+    }
+
+    private void transition(State newState) {
+        state = newState;
+        generation++;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+}
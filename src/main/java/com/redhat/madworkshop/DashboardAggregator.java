@@ -0,0 +1,183 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Cluster-wide status of the workshop Applications for the facilitator dashboard. The counts per module and
+ * sync/health state are kept up to date from the events of the Application informer, so a dashboard request
+ * only copies the aggregates and never lists Applications.
+ */
+@ApplicationScoped
+public class DashboardAggregator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DashboardAggregator.class);
+
+    private static final Set<String> UNHEALTHY = Set.of("Degraded", "Missing");
+
+    @Inject
+    ApplicationCache applicationCache;
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    private int allowedModulesCount;
+
+    private long stuckDeletionThreshold;
+
+    // guarded by this
+    private final Map<String, ApplicationState> states = new HashMap<>();
+
+    // application -> "sync/health" -> count, guarded by this
+    private final Map<String, Map<String, Integer>> counts = new TreeMap<>();
+
+    // user -> deployed applications, guarded by this
+    private final Map<String, Set<String>> applicationsByUser = new HashMap<>();
+
+    void onStart(@Observes StartupEvent ev) {
+        String allowedModulesCountStr = System.getenv().getOrDefault("ALLOWED_MODULES_COUNT", "2");
+        String thresholdStr = System.getenv().getOrDefault("STUCK_DELETION_THRESHOLD_MS", "300000");
+        if (!allowedModulesCountStr.matches("-?\\d+")) {
+            throw new RuntimeException("Environment variable 'ALLOWED_MODULES_COUNT' is either not set or is NaN.");
+        }
+        if (!thresholdStr.matches("\\d+")) {
+            throw new RuntimeException("Environment variable 'STUCK_DELETION_THRESHOLD_MS' is NaN.");
+        }
+        allowedModulesCount = Integer.parseInt(allowedModulesCountStr);
+        stuckDeletionThreshold = Long.parseLong(thresholdStr);
+
+        applicationCache.subscribe(this::update);
+        // the informer may have delivered its initial list before the subscription
+        applicationCache.synced().thenRun(this::seed).exceptionally(t -> {
+            LOGGER.error("Exception while seeding the dashboard", t);
+            return null;
+        });
+    }
+
+    public synchronized JsonObject snapshot() {
+        JsonArray modules = new JsonArray();
+        catalogLoader.catalog().modules().forEach(module -> {
+            JsonArray moduleStates = new JsonArray();
+            int total = 0;
+            for (Map.Entry<String, Integer> entry : counts.getOrDefault(module.applicationName(), Map.of())
+                    .entrySet()) {
+                String[] state = entry.getKey().split("/", 2);
+                moduleStates.add(new JsonObject().put("sync", state[0]).put("health", state[1])
+                        .put("count", entry.getValue()));
+                total += entry.getValue();
+            }
+            modules.add(new JsonObject()
+                    .put("name", module.name())
+                    .put("application", module.applicationName())
+                    .put("isDefault", module.isDefault())
+                    .put("total", total)
+                    .put("states", moduleStates));
+        });
+
+        Instant stuckBefore = Instant.now().minusMillis(stuckDeletionThreshold);
+        JsonArray unhealthy = new JsonArray();
+        JsonArray stuckDeletions = new JsonArray();
+        states.values().stream().sorted(Comparator.comparing(ApplicationState::key)).forEach(state -> {
+            if (state.deletingSince() != null && state.deletingSince().isBefore(stuckBefore)) {
+                stuckDeletions.add(state.toJson().put("deletingSince", state.deletingSince().toString()));
+            } else if (state.deletingSince() == null && UNHEALTHY.contains(state.health())) {
+                unhealthy.add(state.toJson());
+            }
+        });
+
+        JsonArray usersOverQuota = new JsonArray();
+        new TreeMap<>(applicationsByUser).forEach((user, applications) -> {
+            List<String> nonDefault = applications.stream().filter(a -> catalogLoader.getModule(a)
+                    .map(m -> !m.isDefault()).orElse(false)).sorted().toList();
+            if (nonDefault.size() > allowedModulesCount) {
+                usersOverQuota.add(new JsonObject().put("user", user).put("count", nonDefault.size())
+                        .put("applications", new JsonArray(nonDefault)));
+            }
+        });
+
+        return new JsonObject()
+                .put("generated", Instant.now().toString())
+                .put("synced", applicationCache.hasSynced())
+                .put("users", applicationsByUser.size())
+                .put("applications", states.size())
+                .put("allowedModulesCount", allowedModulesCount)
+                .put("modules", modules)
+                .put("unhealthy", unhealthy)
+                .put("stuckDeletions", stuckDeletions)
+                .put("usersOverQuota", usersOverQuota);
+    }
+
+    // events arriving meanwhile carry the same or newer objects than the store, so the order does not matter
+    private synchronized void seed() {
+        applicationCache.allApplications().forEach(resource -> update(resource, false));
+        LOGGER.info("Dashboard seeded with " + states.size() + " applications");
+    }
+
+    private synchronized void update(GenericKubernetesResource resource, boolean deleted) {
+        String user = applicationCache.userForNamespace(resource.getMetadata().getNamespace());
+        if (user == null) {
+            return;
+        }
+        String application = resource.getMetadata().getName();
+        String key = user + "/" + application;
+        ApplicationState previous = deleted ? states.remove(key) : states.put(key, state(user, application, resource));
+        if (previous != null) {
+            count(previous, -1);
+        }
+        if (deleted) {
+            applicationsByUser.computeIfPresent(user, (u, applications) -> {
+                applications.remove(application);
+                return applications.isEmpty() ? null : applications;
+            });
+        } else {
+            count(states.get(key), 1);
+            applicationsByUser.computeIfAbsent(user, u -> new TreeSet<>()).add(application);
+        }
+    }
+
+    private void count(ApplicationState state, int delta) {
+        Map<String, Integer> moduleCounts = counts.computeIfAbsent(state.application(), a -> new TreeMap<>());
+        moduleCounts.merge(state.sync() + "/" + state.health(), delta, (a, b) -> a + b == 0 ? null : a + b);
+        if (moduleCounts.isEmpty()) {
+            counts.remove(state.application());
+        }
+    }
+
+    private static ApplicationState state(String user, String application, GenericKubernetesResource resource) {
+        Object sync = resource.get("status", "sync", "status");
+        Object health = resource.get("status", "health", "status");
+        String deletionTimestamp = resource.getMetadata().getDeletionTimestamp();
+        return new ApplicationState(user, application, sync == null ? "Unknown" : sync.toString(),
+                health == null ? "Unknown" : health.toString(),
+                deletionTimestamp == null ? null : Instant.parse(deletionTimestamp));
+    }
+
+    private record ApplicationState(String user, String application, String sync, String health,
+            Instant deletingSince) {
+
+        String key() {
+            return user + "/" + application;
+        }
+
+        JsonObject toJson() {
+            return new JsonObject().put("user", user).put("application", application).put("sync", sync)
+                    .put("health", health);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the namespaces of a module once its Argo Application is gone. Deletions are driven by the
+ * DELETED events of the Application informer; a timer is only kept for the timeout of each pending deletion.
+ * <p>
+ * Pending deletions are recorded in a ConfigMap in 'NAMESPACE', which every replica watches. Each replica
+ * tracks the pending deletions of the users it owns in {@link ReplicaMembership}, so they are taken over by
+ * another replica when their owner goes away, and resumed after a restart. The leader sweeps module namespaces
+ * whose Application no longer exists.
+ */
+@ApplicationScoped
+public class DeletionReconciler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeletionReconciler.class);
+
+    private static final String MANAGED_BY_LABEL = "argocd.argoproj.io/managed-by";
+
+    @Inject
+    OpenShiftClient client;
+
+    @Inject
+    ApplicationCache applicationCache;
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    KubernetesCalls kubernetesCalls;
+
+    @Inject
+    ReplicaMembership membership;
+
+    private String namespace;
+
+    private String pendingConfigMap;
+
+    private long maxTimeToWait;
+
+    private long orphanGracePeriod;
+
+    private boolean orphanSweepEnabled;
+
+    // the pending deletions of the users owned by this replica
+    private final Map<String, PendingDeletion> pending = new ConcurrentHashMap<>();
+
+    // completed deletions whose namespaces are being deleted, not to be tracked again meanwhile
+    private final Set<String> cleaning = ConcurrentHashMap.newKeySet();
+
+    private SharedIndexInformer<ConfigMap> pendingInformer;
+
+    private ScheduledExecutorService timeoutExecutor;
+
+    private ExecutorService cleanupExecutor;
+
+    void onStart(@Observes StartupEvent ev) {
+        namespace = System.getenv("NAMESPACE");
+        pendingConfigMap = System.getenv().getOrDefault("CONFIGMAP_PENDING_DELETIONS",
+                "workshop-deployer-pending-deletions");
+        String maxTimeToWaitStr = System.getenv().getOrDefault("DELETE_MAX_TIME_TO_WAIT_MS", "300000");
+        String orphanGracePeriodStr = System.getenv().getOrDefault("ORPHAN_NAMESPACE_GRACE_PERIOD_MS", "600000");
+        orphanSweepEnabled = Boolean.parseBoolean(System.getenv().getOrDefault("ORPHAN_SWEEP_ENABLED", "true"));
+        if (!maxTimeToWaitStr.matches("\\d+")) {
+            throw new RuntimeException("Environment variable 'DELETE_MAX_TIME_TO_WAIT_MS' is NaN.");
+        }
+        if (!orphanGracePeriodStr.matches("\\d+")) {
+            throw new RuntimeException("Environment variable 'ORPHAN_NAMESPACE_GRACE_PERIOD_MS' is NaN.");
+        }
+        maxTimeToWait = Long.parseLong(maxTimeToWaitStr);
+        orphanGracePeriod = Long.parseLong(orphanGracePeriodStr);
+        timeoutExecutor = Executors.newSingleThreadScheduledExecutor();
+        cleanupExecutor = ExecutorServiceMetrics.monitor(registry, Executors.newFixedThreadPool(2),
+                "deletion-cleanup");
+        applicationCache.subscribe((resource, deleted) -> {
+            if (deleted) {
+                complete(key(resource.getMetadata().getNamespace(), resource.getMetadata().getName()));
+            }
+        });
+        Gauge.builder("workshop.deletions.pending", pending, Map::size)
+                .description("Number of pending deletions tracked by this replica for the users it owns")
+                .register(registry);
+
+        // the namespaces to delete come from the catalog, which is loaded in the background, and the users owned
+        // by this replica are known once it joined the members
+        CompletableFuture<Void> resumed = CompletableFuture.allOf(applicationCache.synced().toCompletableFuture(),
+                        catalogLoader.loaded().toCompletableFuture(), membership.ready().toCompletableFuture())
+                .thenRunAsync(this::resume, cleanupExecutor);
+        resumed.exceptionally(t -> {
+            LOGGER.error("Exception while resuming pending deletions", t);
+            return null;
+        });
+        membership.addLeadershipListener(leading -> {
+            if (leading && orphanSweepEnabled) {
+                resumed.thenRunAsync(this::sweepOrphanedNamespaces, cleanupExecutor)
+                        .exceptionally(t -> {
+                            LOGGER.error("Exception while sweeping orphaned namespaces", t);
+                            return null;
+                        });
+            }
+        });
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (timeoutExecutor != null) {
+            timeoutExecutor.shutdownNow();
+            cleanupExecutor.shutdown();
+        }
+        if (pendingInformer != null) {
+            pendingInformer.stop();
+        }
+    }
+
+    /**
+     * Deletes the namespaces of the module as soon as the Application of the user is deleted. The deletion is
+     * tracked by the replica which owns the user.
+     */
+    public void register(String user, String application) {
+        Instant deadline = Instant.now().plusMillis(maxTimeToWait);
+        String key = key(applicationCache.argoNamespace(user), application);
+        try {
+            persist(key, new JsonObject().put("user", user).put("application", application)
+                    .put("deadline", deadline.toEpochMilli()));
+        } catch (KubernetesClientException | ApiServerUnavailableException e) {
+            LOGGER.error("Exception while persisting pending deletion of '" + application + "' for user '"
+                    + user + "', it will not survive a restart", e);
+            track(key, user, application, deadline);
+            return;
+        }
+        // otherwise the owner picks it up from the ConfigMap
+        if (membership.owns(user)) {
+            track(key, user, application, deadline);
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void track(String key, String user, String application, Instant deadline) {
+        long delay = Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+        ScheduledFuture<?> timeout = timeoutExecutor.schedule(() -> timeout(key), delay, TimeUnit.MILLISECONDS);
+        PendingDeletion previous = pending.put(key, new PendingDeletion(user, application, timeout));
+        if (previous != null) {
+            previous.timeout().cancel(false);
+        }
+        // the Application might already be gone
+        if (applicationCache.hasSynced() && applicationCache.getApplication(user, application) == null) {
+            complete(key);
+        }
+    }
+
+    private void complete(String key) {
+        PendingDeletion deletion = pending.remove(key);
+        if (deletion == null) {
+            return;
+        }
+        deletion.timeout().cancel(false);
+        cleaning.add(key);
+        LOGGER.info("Application " + deletion.application() + " for user " + deletion.user() + " deleted.");
+        cleanupExecutor.execute(() -> cleanup(key, deletion));
+    }
+
+    private void cleanup(String key, PendingDeletion deletion) {
+        try {
+            deleteNamespaces(deletion.application(), deletion.user());
+            forget(key);
+        } catch (ApiServerUnavailableException e) {
+            // stays in cleaning meanwhile, deleting the namespaces again is harmless
+            LOGGER.warn("Cleanup of " + key + " postponed by " + e.retryAfterSeconds() + "s: " + e.getMessage());
+            timeoutExecutor.schedule(() -> cleanupExecutor.execute(() -> cleanup(key, deletion)),
+                    e.retryAfterSeconds(), TimeUnit.SECONDS);
+            return;
+        } catch (RuntimeException e) {
+            cleaning.remove(key);
+            throw e;
+        }
+        cleaning.remove(key);
+    }
+
+    private void timeout(String key) {
+        PendingDeletion deletion = pending.get(key);
+        if (deletion == null) {
+            return;
+        }
+        // the DELETED event may have been missed while the informer was not watching
+        GenericKubernetesResource resource;
+        try {
+            resource = kubernetesCalls.call("get", "application",
+                    () -> client.genericKubernetesResources(ApplicationCache.APPLICATION_CONTEXT)
+                            .inNamespace(applicationCache.argoNamespace(deletion.user()))
+                            .withName(deletion.application()).get());
+        } catch (ApiServerUnavailableException e) {
+            timeoutExecutor.schedule(() -> timeout(key), e.retryAfterSeconds(), TimeUnit.SECONDS);
+            return;
+        }
+        if (resource == null) {
+            complete(key);
+        } else if (pending.remove(key, deletion)) {
+            LOGGER.warn("Application " + deletion.application() + " was not deleted before timeout.");
+            forget(key);
+        }
+    }
+
+    private void resume() {
+        ConfigMap cm = kubernetesCalls.call("get", "configmap",
+                () -> client.configMaps().inNamespace(namespace).withName(pendingConfigMap).get());
+        if (cm == null) {
+            try {
+                kubernetesCalls.call("create", "configmap", () -> client.configMaps().inNamespace(namespace)
+                        .resource(new ConfigMapBuilder().withNewMetadata().withName(pendingConfigMap).endMetadata()
+                                .build()).create());
+                LOGGER.info("ConfigMap " + pendingConfigMap + " created");
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HttpURLConnection.HTTP_CONFLICT) {
+                    throw e;
+                }
+            }
+        }
+        pendingInformer = client.configMaps().inNamespace(namespace).withName(pendingConfigMap).runnableInformer(0);
+        pendingInformer.addEventHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(ConfigMap obj) {
+                takeOver();
+            }
+
+            @Override
+            public void onUpdate(ConfigMap oldObj, ConfigMap newObj) {
+                takeOver();
+            }
+
+            @Override
+            public void onDelete(ConfigMap obj, boolean deletedFinalStateUnknown) {
+            }
+        });
+        pendingInformer.start().toCompletableFuture().join();
+        membership.addMembershipListener(() -> cleanupExecutor.execute(this::takeOver));
+    }
+
+    /**
+     * Tracks the recorded deletions of the users this replica owns, and drops the ones of users it no longer owns.
+     */
+    private synchronized void takeOver() {
+        persistedDeletions().forEach((key, value) -> {
+            JsonObject deletion = new JsonObject(value);
+            String user = deletion.getString("user");
+            if (membership.owns(user) && !pending.containsKey(key) && !cleaning.contains(key)) {
+                LOGGER.info("Tracking pending deletion of '" + deletion.getString("application") + "' for user '"
+                        + user + "'");
+                track(key, user, deletion.getString("application"), Instant.ofEpochMilli(deletion.getLong("deadline")));
+            }
+        });
+        pending.forEach((key, deletion) -> {
+            if (!membership.owns(deletion.user()) && pending.remove(key, deletion)) {
+                deletion.timeout().cancel(false);
+                LOGGER.info("Pending deletion of '" + deletion.application() + "' for user '" + deletion.user()
+                        + "' handed over to its new owner");
+            }
+        });
+    }
+
+    private Map<String, String> persistedDeletions() {
+        ConfigMap cm = pendingInformer == null ? null
+                : pendingInformer.getStore().getByKey(namespace + "/" + pendingConfigMap);
+        return cm == null || cm.getData() == null ? Map.of() : cm.getData();
+    }
+
+    private void sweepOrphanedNamespaces() {
+        if (!membership.isLeader()) {
+            return;
+        }
+        Instant gracePeriodStart = Instant.now().minusMillis(orphanGracePeriod);
+        List<Namespace> namespaces = kubernetesCalls.call("list", "namespace",
+                () -> client.namespaces().withLabel(MANAGED_BY_LABEL).list().getItems());
+        int swept = 0;
+        for (Namespace ns : namespaces) {
+            String namespaceName = ns.getMetadata().getName();
+            String user = applicationCache.userForNamespace(ns.getMetadata().getLabels().get(MANAGED_BY_LABEL));
+            if (user == null || ns.getMetadata().getDeletionTimestamp() != null
+                    || Instant.parse(ns.getMetadata().getCreationTimestamp()).isAfter(gracePeriodStart)) {
+                continue;
+            }
+            List<ModuleDescriptor> modules = catalogLoader.catalog().modules().stream()
+                    .filter(m -> m.namespacesFor(user).contains(namespaceName)).toList();
+            boolean orphaned = !modules.isEmpty() && modules.stream().noneMatch(m ->
+                    applicationCache.getApplication(user, m.applicationName()) != null
+                            || persistedDeletions().containsKey(key(applicationCache.argoNamespace(user),
+                            m.applicationName())));
+            if (orphaned) {
+                kubernetesCalls.run("delete", "namespace", () -> client.namespaces().withName(namespaceName).delete());
+                LOGGER.info("Orphaned namespace " + namespaceName + " of user " + user + " deleted");
+                swept++;
+            }
+        }
+        LOGGER.info("Orphaned namespace sweep finished, " + swept + " namespaces deleted");
+    }
+
+    private void persist(String key, JsonObject deletion) {
+        String patch = new JsonObject().put("data", new JsonObject().put(key, deletion.encode())).encode();
+        kubernetesCalls.call("patch", "configmap", () -> client.configMaps().inNamespace(namespace)
+                .withName(pendingConfigMap).patch(PatchContext.of(PatchType.JSON_MERGE), patch));
+    }
+
+    private void forget(String key) {
+        String patch = new JsonObject().put("data", new JsonObject().putNull(key)).encode();
+        try {
+            kubernetesCalls.call("patch", "configmap", () -> client.configMaps().inNamespace(namespace)
+                    .withName(pendingConfigMap).patch(PatchContext.of(PatchType.JSON_MERGE), patch));
+        } catch (KubernetesClientException | ApiServerUnavailableException e) {
+            LOGGER.error("Exception while removing pending deletion " + key, e);
+        }
+    }
+
+    private void deleteNamespaces(String application, String user) {
+        Optional<ModuleDescriptor> module = catalogLoader.getModule(application);
+        if (module.isEmpty()) {
+            LOGGER.warn("Module for application '" + application + "' not found.");
+        } else {
+            module.get().namespacesFor(user).forEach(namespaceName -> {
+                kubernetesCalls.run("delete", "namespace", () -> client.namespaces().withName(namespaceName).delete());
+                LOGGER.info("Namespace " + namespaceName + " deleted");
+            });
+        }
+    }
+
+    // ConfigMap keys allow '.', which is not allowed in namespace names
+    private static String key(String namespace, String application) {
+        return namespace + "." + application;
+    }
+
+    private record PendingDeletion(String user, String application, ScheduledFuture<?> timeout) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.redhat.madworkshop;
+
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A deploy or undeploy of an application for a user, run by {@link DeploymentJobs}.
+ */
+public final class DeploymentJob {
+
+    public enum Action {
+        DEPLOY, UNDEPLOY
+    }
+
+    public enum State {
+        PENDING, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+
+    private final String user;
+
+    private final String application;
+
+    private final Action action;
+
+    private final Instant submitted = Instant.now();
+
+    private final CompletableFuture<JsonObject> result = new CompletableFuture<>();
+
+    private volatile State state = State.PENDING;
+
+    private volatile Instant finished;
+
+    private volatile String error;
+
+    DeploymentJob(String user, String application, Action action) {
+        this.user = user;
+        this.application = application;
+        this.action = action;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String user() {
+        return user;
+    }
+
+    public String application() {
+        return application;
+    }
+
+    public Action action() {
+        return action;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public Instant finished() {
+        return finished;
+    }
+
+    public boolean isFinished() {
+        return finished != null;
+    }
+
+    /**
+     * @return completes with the outcome of the deploy or undeploy, or exceptionally if the job failed
+     */
+    public CompletableFuture<JsonObject> result() {
+        return result;
+    }
+
+    void running() {
+        state = State.RUNNING;
+    }
+
+    void succeeded(JsonObject outcome) {
+        finished = Instant.now();
+        result.complete(outcome);
+        state = State.SUCCEEDED;
+    }
+
+    void failed(Throwable t) {
+        finished = Instant.now();
+        error = t.getMessage() == null ? t.getClass().getSimpleName() : t.getMessage();
+        result.completeExceptionally(t);
+        state = State.FAILED;
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject()
+                .put("jobId", id)
+                .put("action", action.name().toLowerCase())
+                .put("application", application)
+                .put("state", state.name().toLowerCase())
+                .put("submitted", submitted.toString());
+        if (finished != null) {
+            json.put("finished", finished.toString());
+        }
+        if (state == State.SUCCEEDED) {
+            json.put("result", result.join());
+        } else if (state == State.FAILED) {
+            json.put("error", error);
+        }
+        return json;
+    }
+}
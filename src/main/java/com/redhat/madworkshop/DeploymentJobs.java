@@ -0,0 +1,236 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs deploys and undeploys as jobs keyed by user and application. A request for a pair which already has a
+ * job in flight joins that job instead of starting a second one. Deploys are checked against
+ * 'ALLOWED_MODULES_COUNT' under a per-user lock, counting the deployed modules and the deploys in flight.
+ * Finished jobs are kept for 'JOB_RETENTION_MS' so their outcome can be polled.
+ * <p>
+ * The jobs in flight and the quota check are per replica. With several replicas, requests of a user which reach
+ * different replicas, e.g. after a failover or without the sticky session cookie, can run the same deploy on two
+ * replicas at once and exceed 'ALLOWED_MODULES_COUNT' by the deploys in flight on the other replicas.
+ */
+@ApplicationScoped
+public class DeploymentJobs {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeploymentJobs.class);
+
+    // a finished deploy counts against the quota until the informer has seen its Application
+    private static final long INFORMER_LAG_MS = 30_000;
+
+    @Inject
+    OpenShiftClient client;
+
+    @Inject
+    DeploymentService deploymentService;
+
+    @Inject
+    ApplicationCache applicationCache;
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    @Inject
+    KubernetesCalls kubernetesCalls;
+
+    @Inject
+    BlockingExecution blockingExecution;
+
+    @Inject
+    MeterRegistry registry;
+
+    private int allowedModulesCount;
+
+    private long retention;
+
+    private final Map<String, DeploymentJob> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, DeploymentJob> jobs = new ConcurrentHashMap<>();
+
+    private final Map<String, Object> userLocks = new ConcurrentHashMap<>();
+
+    private Executor executor;
+
+    private ScheduledExecutorService expiryExecutor;
+
+    void onStart(@Observes StartupEvent ev) {
+        String allowedModulesCountStr = System.getenv().getOrDefault("ALLOWED_MODULES_COUNT", "2");
+        String retentionStr = System.getenv().getOrDefault("JOB_RETENTION_MS", "600000");
+        if (!allowedModulesCountStr.matches("-?\\d+")) {
+            throw new RuntimeException("Environment variable 'ALLOWED_MODULES_COUNT' is either not set or is NaN.");
+        }
+        if (!retentionStr.matches("\\d+")) {
+            throw new RuntimeException("Environment variable 'JOB_RETENTION_MS' is NaN.");
+        }
+        allowedModulesCount = Integer.parseInt(allowedModulesCountStr);
+        retention = Long.parseLong(retentionStr);
+        executor = blockingExecution.executor("deployment-jobs");
+        expiryExecutor = Executors.newSingleThreadScheduledExecutor();
+        expiryExecutor.scheduleWithFixedDelay(this::expire, 1, 1, TimeUnit.MINUTES);
+        applicationCache.subscribe((resource, deleted) -> {
+            String user = applicationCache.userForNamespace(resource.getMetadata().getNamespace());
+            String key = key(user, resource.getMetadata().getName());
+            DeploymentJob job = inFlight.get(key);
+            if (!deleted && job != null && job.isFinished()) {
+                inFlight.remove(key, job);
+            }
+        });
+        Gauge.builder("workshop.jobs.inflight", inFlight, Map::size)
+                .description("Number of deploy and undeploy jobs in flight")
+                .register(registry);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (expiryExecutor != null) {
+            expiryExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts a job for the user and application, or returns the job already in flight for them.
+     *
+     * @throws RejectedException if another action is in flight for the application, or the deploy would exceed
+     *                           the number of allowed modules
+     * @throws ApiServerUnavailableException if the API server circuit breaker is open
+     */
+    public DeploymentJob submit(String user, String application, DeploymentJob.Action action) {
+        String key = key(user, application);
+        DeploymentJob existing = joinable(key, action);
+        if (existing != null) {
+            return existing;
+        }
+        // a job started now would only fail, so it is rejected before it counts against the quota
+        kubernetesCalls.checkAvailable();
+        synchronized (userLocks.computeIfAbsent(user, u -> new Object())) {
+            existing = joinable(key, action);
+            if (existing != null) {
+                return existing;
+            }
+            if (action == DeploymentJob.Action.DEPLOY) {
+                checkQuota(user, application);
+            }
+            DeploymentJob job = new DeploymentJob(user, application, action);
+            inFlight.put(key, job);
+            jobs.put(job.id(), job);
+            executor.execute(() -> run(key, job));
+            LOGGER.info("Job " + job.id() + " submitted: " + action + " of '" + application + "' for user '"
+                    + user + "'");
+            return job;
+        }
+    }
+
+    public Optional<DeploymentJob> get(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private DeploymentJob joinable(String key, DeploymentJob.Action action) {
+        DeploymentJob existing = inFlight.get(key);
+        if (existing == null || existing.isFinished()) {
+            return null;
+        }
+        if (existing.action() != action) {
+            throw new RejectedException("OPERATION_IN_PROGRESS", "A " + existing.action().name().toLowerCase()
+                    + " of '" + existing.application() + "' is already in progress");
+        }
+        return existing;
+    }
+
+    private void run(String key, DeploymentJob job) {
+        job.running();
+        try {
+            job.succeeded(job.action() == DeploymentJob.Action.DEPLOY
+                    ? deploymentService.deploy(job.user(), job.application())
+                    : deploymentService.undeploy(job.user(), job.application()));
+        } catch (Exception e) {
+            LOGGER.error("Job " + job.id() + " failed: " + job.action() + " of '" + job.application()
+                    + "' for user '" + job.user() + "'", e);
+            job.failed(e);
+        } finally {
+            if (job.action() == DeploymentJob.Action.UNDEPLOY || job.state() == DeploymentJob.State.FAILED
+                    || applicationCache.getApplication(job.user(), job.application()) != null) {
+                inFlight.remove(key, job);
+            }
+        }
+    }
+
+    private void checkQuota(String user, String application) {
+        ModuleDescriptor module = catalogLoader.getModule(application).orElse(null);
+        if (module == null || module.isDefault()) {
+            return;
+        }
+        Set<String> deployed = new HashSet<>();
+        deployedApplications(user).forEach(r -> deployed.add(r.getMetadata().getName()));
+        inFlight.values().stream()
+                .filter(j -> j.user().equals(user) && j.action() == DeploymentJob.Action.DEPLOY)
+                .forEach(j -> deployed.add(j.application()));
+        long count = deployed.stream().filter(a -> catalogLoader.getModule(a)
+                .map(m -> !m.isDefault()).orElse(false)).count();
+        if (!deployed.contains(application) && count >= allowedModulesCount) {
+            LOGGER.warn("User '" + user + "' reached the maximum of " + allowedModulesCount + " modules, deploy of '"
+                    + application + "' rejected");
+            throw new RejectedException("MAX_MODULES_DEPLOYED",
+                    "The maximum of " + allowedModulesCount + " modules is deployed");
+        }
+    }
+
+    private List<GenericKubernetesResource> deployedApplications(String user) {
+        if (applicationCache.hasSynced()) {
+            return applicationCache.applicationsForUser(user);
+        }
+        return kubernetesCalls.call("list", "application",
+                () -> client.genericKubernetesResources(ApplicationCache.APPLICATION_CONTEXT)
+                        .inNamespace(applicationCache.argoNamespace(user)).list().getItems());
+    }
+
+    private void expire() {
+        Instant retentionStart = Instant.now().minusMillis(retention);
+        Instant lagStart = Instant.now().minusMillis(INFORMER_LAG_MS);
+        inFlight.values().removeIf(j -> j.isFinished() && j.finished().isBefore(lagStart));
+        jobs.values().removeIf(j -> j.isFinished() && j.finished().isBefore(retentionStart));
+    }
+
+    private static String key(String user, String application) {
+        return user + "/" + application;
+    }
+
+    /**
+     * A job which was not started. The reason is meant for the UI, e.g. 'MAX_MODULES_DEPLOYED'.
+     */
+    public static class RejectedException extends RuntimeException {
+
+        private final String reason;
+
+        public RejectedException(String reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+
+        public String reason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Deploys and undeploys the Argo Application of a module for a user.
+ */
+@ApplicationScoped
+public class DeploymentService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeploymentService.class);
+
+    @Inject
+    OpenShiftClient client;
+
+    @Inject
+    ApplicationCache applicationCache;
+
+    @Inject
+    NamespaceProvisioner namespaceProvisioner;
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    @Inject
+    DeletionReconciler deletionReconciler;
+
+    @Inject
+    KubernetesCalls kubernetesCalls;
+
+    public JsonObject deploy(String user, String application) {
+        Optional<ModuleDescriptor> module = catalogLoader.getModule(application);
+        if (module.isEmpty()) {
+            LOGGER.warn("Module for application '" + application + "' not found.");
+            return new JsonObject().put("status", "notchanged");
+        }
+
+        if (applicationCache.hasSynced() && applicationCache.getApplication(user, application) != null) {
+            LOGGER.warn("Application '" + application + "' is already deployed for user '" + user + "'");
+            return new JsonObject().put("status", "notchanged");
+        }
+
+        // create namespaces for module
+        namespaceProvisioner.provision(user, module.get().namespacesFor(user));
+
+        LOGGER.info("Deploying application '" + application + "' for user '" + user + "'");
+        GenericKubernetesResource applicationDef = module.get().application()
+                .render(user, client.getKubernetesSerialization());
+        GenericKubernetesResource newResource;
+        long start = System.nanoTime();
+        try {
+            newResource = kubernetesCalls.call("create", "application",
+                    () -> client.genericKubernetesResources(ApplicationCache.APPLICATION_CONTEXT)
+                            .inNamespace(applicationCache.argoNamespace(user)).resource(applicationDef).create());
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HttpURLConnection.HTTP_CONFLICT) {
+                LOGGER.warn("Application '" + application + "' is already deployed for user '" + user + "'");
+                return new JsonObject().put("status", "notchanged");
+            }
+            throw e;
+        } finally {
+            namespaceProvisioner.stepTimer("application").record(Duration.ofNanos(System.nanoTime() - start));
+        }
+        return new JsonObject().put("status", "ok")
+                .put("application", new JsonObject().put("deployed", true).put("deleting", false)
+                        .put("status",
+                                newResource.get("status", "sync", "status") == null ? ""
+                                        : newResource.get("status", "sync", "status"))
+                        .put("health", newResource.get("status", "health", "status") == null ? ""
+                                : newResource.get("status", "health", "status")));
+    }
+
+    public JsonObject undeploy(String user, String application) {
+        ResourceDefinitionContext context = ApplicationCache.APPLICATION_CONTEXT;
+
+        GenericKubernetesResource resource = kubernetesCalls.call("get", "application",
+                () -> client.genericKubernetesResources(context)
+                        .inNamespace(applicationCache.argoNamespace(user)).withName(application).get());
+        if (resource == null) {
+            LOGGER.warn("Application '" + application + "' not found for user '" + user + "'");
+            return new JsonObject().put("status", "notchanged");
+        }
+        LOGGER.info("Undeploying application '" + application + "' for user '" + user + "'");
+        kubernetesCalls.run("delete", "application", () -> client.genericKubernetesResources(context)
+                .inNamespace(applicationCache.argoNamespace(user)).withName(application).delete());
+
+        // delete namespaces once the Application is gone
+        deletionReconciler.register(user, application);
+
+        return new JsonObject().put("status", "ok")
+                .put("application", new JsonObject().put("deployed", true).put("deleting", true)
+                        .put("status", "")
+                        .put("health", ""));
+    }
+}
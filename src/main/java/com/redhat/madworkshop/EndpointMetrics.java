@@ -0,0 +1,62 @@
+package com.redhat.madworkshop;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.quarkus.vertx.http.runtime.filters.Filters;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency and status of the REST endpoints come from the HTTP server binder of quarkus-micrometer
+ * ('http_server_requests_seconds', tagged by path template and status), which is published as a histogram here.
+ * Adds a gauge of the '/api' requests in flight; server-sent event streams stay open for a whole page visit and
+ * are not counted.
+ */
+@ApplicationScoped
+public class EndpointMetrics {
+
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Produces
+    @Singleton
+    public MeterFilter httpServerHistogram() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals("http.server.requests")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+            }
+        };
+    }
+
+    void registerFilter(@Observes Filters filters) {
+        Gauge.builder("workshop.endpoint.inflight", inFlight, AtomicInteger::get)
+                .description("Number of /api requests currently being processed")
+                .register(registry);
+        filters.register(ctx -> {
+            String accept = ctx.request().getHeader(HttpHeaders.ACCEPT);
+            if (ctx.normalizedPath().startsWith("/api/")
+                    && (accept == null || !accept.contains(MediaType.SERVER_SENT_EVENTS))) {
+                inFlight.incrementAndGet();
+                // also called when the client aborts, unlike a response filter
+                ctx.addEndHandler(ar -> inFlight.decrementAndGet());
+            }
+            ctx.next();
+        }, 100);
+    }
+}
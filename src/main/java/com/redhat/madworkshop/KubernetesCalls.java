@@ -0,0 +1,184 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the calls to the Kubernetes API server and records their duration, tagged by verb, resource and outcome.
+ * <p>
+ * All calls share a token bucket of 'API_SERVER_CALLS_PER_SECOND' with bursts of 'API_SERVER_CALLS_BURST', and
+ * the number of concurrent calls is capped by 'API_SERVER_MAX_CONCURRENT_CALLS'. Callers wait for a token and a
+ * free slot, which is cheap since the blocking calls run on virtual threads, but for at most
+ * 'API_SERVER_MAX_WAIT_MS'; beyond that the call is shed with an {@link ApiServerUnavailableException}. A call
+ * shed after it got its token gives the token back.
+ * <p>
+ * A circuit breaker opens after 'CIRCUIT_BREAKER_FAILURE_THRESHOLD' consecutive calls failed with a server
+ * error, a 429 or no response at all, and rejects every call for 'CIRCUIT_BREAKER_OPEN_MS' before a trial call
+ * is let through.
+ */
+@ApplicationScoped
+public class KubernetesCalls {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KubernetesCalls.class);
+
+    @Inject
+    MeterRegistry registry;
+
+    private Semaphore permits;
+
+    private TokenBucket rateLimiter;
+
+    private CircuitBreaker circuitBreaker;
+
+    private long maxWait;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        int maxConcurrentCalls = positive("API_SERVER_MAX_CONCURRENT_CALLS", "32");
+        int callsPerSecond = positive("API_SERVER_CALLS_PER_SECOND", "50");
+        int burst = positive("API_SERVER_CALLS_BURST", "100");
+        maxWait = positive("API_SERVER_MAX_WAIT_MS", "5000");
+        int failureThreshold = positive("CIRCUIT_BREAKER_FAILURE_THRESHOLD", "5");
+        int openMillis = positive("CIRCUIT_BREAKER_OPEN_MS", "30000");
+        permits = new Semaphore(maxConcurrentCalls, true);
+        rateLimiter = new TokenBucket(callsPerSecond, burst);
+        circuitBreaker = new CircuitBreaker(failureThreshold, openMillis);
+        Gauge.builder("workshop.kubernetes.calls.waiting", waiting, AtomicInteger::get)
+                .description("Number of calls waiting for a free slot towards the API server")
+                .register(registry);
+        Gauge.builder("workshop.kubernetes.calls.active", permits,
+                        p -> maxConcurrentCalls - p.availablePermits())
+                .description("Number of calls currently in progress against the API server")
+                .register(registry);
+        Gauge.builder("workshop.kubernetes.circuit.state", circuitBreaker, b -> b.state().ordinal())
+                .description("State of the API server circuit breaker: 0 closed, 1 half-open, 2 open")
+                .register(registry);
+    }
+
+    /**
+     * Fails fast while the circuit breaker is open, e.g. before accepting work which needs the API server.
+     *
+     * @throws ApiServerUnavailableException if the circuit breaker is open
+     */
+    public void checkAvailable() {
+        if (circuitBreaker.isRejecting()) {
+            throw rejected("circuit-open", "The API server is unavailable",
+                    TimeUnit.MILLISECONDS.toSeconds(circuitBreaker.millisUntilRetry()) + 1);
+        }
+    }
+
+    /**
+     * @throws ApiServerUnavailableException if the call was shed; the API server was not called then
+     */
+    public <T> T call(String verb, String resource, Supplier<T> call) {
+        checkAvailable();
+        waiting.incrementAndGet();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWait);
+            if (!rateLimiter.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                throw rejected("rate-limited", "Too many calls to the API server",
+                        TimeUnit.NANOSECONDS.toSeconds(rateLimiter.nanosUntilAvailable()) + 1);
+            }
+            boolean slotTaken = false;
+            try {
+                slotTaken = permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } finally {
+                if (!slotTaken) {
+                    // the call is not sent, so its token must not count against the rate limit
+                    rateLimiter.refund();
+                }
+            }
+            if (!slotTaken) {
+                throw rejected("concurrency", "Too many concurrent calls to the API server",
+                        TimeUnit.MILLISECONDS.toSeconds(maxWait) + 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KubernetesClientException("Interrupted while waiting to call the API server", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        // taken last, so a trial call of the half-open breaker is never stuck waiting for a token or slot
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquirePermission();
+        if (permit == null) {
+            permits.release();
+            rateLimiter.refund();
+            throw rejected("circuit-open", "The API server is unavailable",
+                    TimeUnit.MILLISECONDS.toSeconds(circuitBreaker.millisUntilRetry()) + 1);
+        }
+        long start = System.nanoTime();
+        String outcome = "error";
+        // null if the outcome says nothing about the API server, e.g. an exception in the caller's code
+        Boolean apiServerFailed = null;
+        try {
+            T result = call.get();
+            outcome = "success";
+            apiServerFailed = false;
+            return result;
+        } catch (KubernetesClientException e) {
+            outcome = e.getCode() > 0 ? String.valueOf(e.getCode()) : "error";
+            apiServerFailed = e.getCode() == 0 || e.getCode() == 429 || e.getCode() >= 500;
+            throw e;
+        } finally {
+            permits.release();
+            recordOutcome(permit, apiServerFailed);
+            Timer.builder("workshop.kubernetes.calls")
+                    .description("Duration of the calls to the Kubernetes API server")
+                    .tag("verb", verb)
+                    .tag("resource", resource)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void run(String verb, String resource, Runnable call) {
+        call(verb, resource, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private void recordOutcome(CircuitBreaker.Permit permit, Boolean apiServerFailed) {
+        CircuitBreaker.State before = circuitBreaker.state();
+        if (apiServerFailed == null) {
+            circuitBreaker.onIgnored(permit);
+        } else if (apiServerFailed) {
+            circuitBreaker.onFailure(permit);
+        } else {
+            circuitBreaker.onSuccess(permit);
+        }
+        CircuitBreaker.State after = circuitBreaker.state();
+        if (before != after) {
+            LOGGER.warn("API server circuit breaker changed from " + before + " to " + after);
+        }
+    }
+
+    private ApiServerUnavailableException rejected(String reason, String message, long retryAfterSeconds) {
+        registry.counter("workshop.kubernetes.calls.rejected", "reason", reason).increment();
+        return new ApiServerUnavailableException(message, retryAfterSeconds);
+    }
+
+    private static int positive(String name, String defaultValue) {
+        String value = System.getenv().getOrDefault(name, defaultValue);
+        if (!value.matches("\\d+") || Integer.parseInt(value) == 0) {
+            throw new RuntimeException("Environment variable '" + name + "' is not a positive number.");
+        }
+        return Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,60 @@
+package com.redhat.madworkshop;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of the workshop modules, indexed by Argo Application name.
+ */
+public class ModuleCatalog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleCatalog.class);
+
+    private final List<ModuleDescriptor> modules;
+
+    private final Map<String, ModuleDescriptor> modulesByApplication;
+
+    private ModuleCatalog(List<ModuleDescriptor> modules) {
+        this.modules = Collections.unmodifiableList(modules);
+        Map<String, ModuleDescriptor> index = new LinkedHashMap<>();
+        modules.forEach(m -> index.put(m.applicationName(), m));
+        this.modulesByApplication = Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * @param modules      the 'modules' array of the modules ConfigMap
+     * @param applications the Application definition per module ConfigMap name
+     */
+    static ModuleCatalog of(JsonArray modules, Map<String, String> applications) {
+        List<ModuleDescriptor> descriptors = new ArrayList<>();
+        modules.stream().forEach(o -> {
+            JsonObject module = (JsonObject) o;
+            String application = applications.get(module.getString("configMap"));
+            if (application == null) {
+                LOGGER.warn("Application for module '" + module.getString("name") + "' not found, module is skipped.");
+                return;
+            }
+            ModuleDescriptor descriptor = ModuleDescriptor.from(module, application);
+            descriptors.add(descriptor);
+            LOGGER.info("Loaded application for " + descriptor.applicationName());
+        });
+        return new ModuleCatalog(descriptors);
+    }
+
+    public List<ModuleDescriptor> modules() {
+        return modules;
+    }
+
+    public Optional<ModuleDescriptor> getModule(String application) {
+        return Optional.ofNullable(modulesByApplication.get(application));
+    }
+}
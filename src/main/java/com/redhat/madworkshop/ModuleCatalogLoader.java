@@ -0,0 +1,183 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Loads the {@link ModuleCatalog} from the modules ConfigMap and the per-module ConfigMaps, and keeps it current
+ * with an informer on the ConfigMaps in 'NAMESPACE'. Every change builds a new immutable catalog which replaces
+ * the previous one at once, so requests never see a partially updated catalog.
+ * <p>
+ * Startup does not wait for the catalog: it is loaded once the informer synced, and the catalog stays empty and
+ * the deployer not ready until the modules ConfigMap exists and is valid.
+ */
+@ApplicationScoped
+public class ModuleCatalogLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleCatalogLoader.class);
+
+    @Inject
+    OpenShiftClient client;
+
+    private String namespace;
+
+    private String configmap;
+
+    private String modulesKey;
+
+    private SharedIndexInformer<ConfigMap> informer;
+
+    private volatile ModuleCatalog catalog = ModuleCatalog.of(new JsonArray(), Map.of());
+
+    private volatile Set<String> watchedConfigMaps = Set.of();
+
+    private volatile boolean started;
+
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    // started before the other startup observers, which register listeners
+    void onStart(@Observes @Priority(10) StartupEvent ev) {
+        namespace = System.getenv("NAMESPACE");
+        if (namespace == null || namespace.isBlank()) {
+            throw new RuntimeException("Environment variable 'NAMESPACE' for namespace not set.");
+        }
+        configmap = System.getenv().getOrDefault("CONFIGMAP_MODULES", "workshop-modules");
+        modulesKey = System.getenv().getOrDefault("CONFIGMAP_MODULES_KEY", "modules.json");
+
+        LOGGER.info("Loading configmaps...");
+        watchedConfigMaps = Set.of(configmap);
+        informer = client.configMaps().inNamespace(namespace).runnableInformer(0);
+        informer.addEventHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(ConfigMap obj) {
+                onChange(obj);
+            }
+
+            @Override
+            public void onUpdate(ConfigMap oldObj, ConfigMap newObj) {
+                onChange(newObj);
+            }
+
+            @Override
+            public void onDelete(ConfigMap obj, boolean deletedFinalStateUnknown) {
+                onChange(obj);
+            }
+        });
+        // a single list of the namespace replaces the get per module ConfigMap; not joined, so the startup
+        // does not wait for the API server
+        informer.start().whenComplete((v, t) -> {
+            if (t != null) {
+                LOGGER.error("ConfigMap informer failed to start", t);
+                return;
+            }
+            started = true;
+            reload();
+        });
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (informer != null) {
+            informer.stop();
+        }
+    }
+
+    public ModuleCatalog catalog() {
+        return catalog;
+    }
+
+    public Optional<ModuleDescriptor> getModule(String application) {
+        return catalog.getModule(application);
+    }
+
+    public boolean isLoaded() {
+        return loaded.isDone();
+    }
+
+    /**
+     * @return completed once the catalog was loaded for the first time
+     */
+    public CompletionStage<Void> loaded() {
+        return loaded.minimalCompletionStage();
+    }
+
+    /**
+     * Registers a listener which is called after every reload of the catalog.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    private void onChange(ConfigMap cm) {
+        if (!started || !watchedConfigMaps.contains(cm.getMetadata().getName())) {
+            return;
+        }
+        reload();
+    }
+
+    private synchronized void reload() {
+        try {
+            catalog = load();
+            LOGGER.info("Module catalog reloaded with " + catalog.modules().size() + " modules");
+        } catch (Exception e) {
+            if (isLoaded()) {
+                LOGGER.error("Exception while reloading the module catalog, keeping the previous one", e);
+            } else {
+                LOGGER.warn("Module catalog not loaded, waiting for a change of the ConfigMaps: " + e.getMessage());
+            }
+            return;
+        }
+        loaded.complete(null);
+        listeners.forEach(Runnable::run);
+    }
+
+    private ModuleCatalog load() {
+        ConfigMap cmModules = informer.getStore().getByKey(namespace + "/" + configmap);
+        if (cmModules == null) {
+            throw new RuntimeException("Configmap '" + configmap + "' not found in namespace '" + namespace + "'.");
+        }
+        String modulesStr = cmModules.getData() == null ? null : cmModules.getData().get(modulesKey);
+        if (modulesStr == null || modulesStr.isEmpty()) {
+            throw new RuntimeException("Entry '" + modulesKey + "' not found in ConfigMap '" + configmap + "'.");
+        }
+        JsonArray modules = new JsonObject(modulesStr).getJsonArray("modules");
+
+        Map<String, String> applications = new HashMap<>();
+        Set<String> configMaps = new HashSet<>();
+        configMaps.add(configmap);
+        modules.stream().forEach(o -> {
+            String name = ((JsonObject) o).getString("configMap");
+            configMaps.add(name);
+            ConfigMap cm = informer.getStore().getByKey(namespace + "/" + name);
+            if (cm != null && cm.getData() != null) {
+                applications.put(name, cm.getData().get(name + ".json"));
+            }
+        });
+        ModuleCatalog loadedCatalog = ModuleCatalog.of(modules, applications);
+        watchedConfigMaps = Set.copyOf(configMaps);
+        return loadedCatalog;
+    }
+}
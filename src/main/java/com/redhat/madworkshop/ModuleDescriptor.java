@@ -0,0 +1,50 @@
+package com.redhat.madworkshop;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.List;
+
+/**
+ * Immutable description of a workshop module, as defined in the modules ConfigMap.
+ *
+ * @param staticJson the serialized module fields which do not depend on the user,
+ *                   without the closing brace so the per-user status can be appended
+ */
+public record ModuleDescriptor(String name, String description, List<String> primaryTags,
+        List<String> secondaryTags, boolean isDefault, String applicationName, ApplicationTemplate application,
+        List<UserTemplate> namespaces, String staticJson) {
+
+    static ModuleDescriptor from(JsonObject module, String application) {
+        String applicationName = new JsonObject(application).getJsonObject("metadata").getString("name");
+        JsonObject tags = module.getJsonObject("tags", new JsonObject());
+        List<String> primaryTags = toList(tags.getJsonArray("primary"));
+        List<String> secondaryTags = toList(tags.getJsonArray("secondary"));
+        boolean isDefault = module.getBoolean("isDefault", false);
+
+        String json = new JsonObject()
+                .put("name", module.getString("name"))
+                .put("description", module.getString("description"))
+                .put("primaryTags", new JsonArray(primaryTags))
+                .put("secondaryTags", new JsonArray(secondaryTags))
+                .put("isDefault", isDefault)
+                .put("application", applicationName)
+                .encode();
+        List<UserTemplate> namespaces = toList(module.getJsonArray("namespaces")).stream()
+                .map(UserTemplate::compile).toList();
+        return new ModuleDescriptor(module.getString("name"), module.getString("description"), primaryTags,
+                secondaryTags, isDefault, applicationName, ApplicationTemplate.compile(application), namespaces,
+                json.substring(0, json.length() - 1));
+    }
+
+    public List<String> namespacesFor(String user) {
+        return namespaces.stream().map(n -> n.render(user)).toList();
+    }
+
+    private static List<String> toList(JsonArray array) {
+        if (array == null) {
+            return List.of();
+        }
+        return array.stream().map(String::valueOf).toList();
+    }
+}
@@ -0,0 +1,162 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleBindingBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleRefBuilder;
+import io.fabric8.kubernetes.api.model.rbac.SubjectBuilder;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the namespaces of a module together with the RoleBindings for the user and Argo CD.
+ * All resources are server-side applied, so provisioning is idempotent and needs no prior get.
+ * Namespaces are provisioned concurrently, and the two RoleBindings of a namespace are applied
+ * concurrently once the namespace exists. Each step runs on its own virtual thread.
+ */
+@ApplicationScoped
+public class NamespaceProvisioner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NamespaceProvisioner.class);
+
+    @Inject
+    OpenShiftClient client;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    KubernetesCalls kubernetesCalls;
+
+    private String argoApplicationNamespace;
+
+    private String argoApplicationName;
+
+    private ExecutorService executorService;
+
+    void onStart(@Observes StartupEvent ev) {
+        argoApplicationNamespace = System.getenv("ARGO_NAMESPACE_PREFIX");
+        argoApplicationName = System.getenv().getOrDefault("ARGO_NAME_PREFIX", "globex-gitops");
+        // concurrency towards the API server is capped in KubernetesCalls
+        executorService = ExecutorServiceMetrics.monitor(registry, Executors.newVirtualThreadPerTaskExecutor(),
+                "provisioning");
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Provisions the namespaces for a user and waits until all of them are ready.
+     */
+    public void provision(String user, List<String> namespaces) {
+        long start = System.nanoTime();
+        Map<String, Long> stepTimes = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] futures = namespaces.stream()
+                .map(namespaceName -> CompletableFuture
+                        .runAsync(() -> timed("namespace", namespaceName, stepTimes,
+                                () -> applyNamespace(user, namespaceName)), executorService)
+                        .thenCompose(v -> CompletableFuture.allOf(
+                                CompletableFuture.runAsync(() -> timed("userRoleBinding", namespaceName, stepTimes,
+                                        () -> applyUserRoleBinding(user, namespaceName)), executorService),
+                                CompletableFuture.runAsync(() -> timed("argoRoleBinding", namespaceName, stepTimes,
+                                        () -> applyArgoRoleBinding(user, namespaceName)), executorService))))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        LOGGER.info("Namespaces " + namespaces + " provisioned for user '" + user + "' in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms " + stepTimes);
+    }
+
+    Timer stepTimer(String step) {
+        return Timer.builder("workshop.provisioning.step")
+                .description("Duration of the individual provisioning steps")
+                .tag("step", step)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private void timed(String step, String namespaceName, Map<String, Long> stepTimes, Runnable runnable) {
+        long start = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            long duration = System.nanoTime() - start;
+            stepTimer(step).record(Duration.ofNanos(duration));
+            stepTimes.put(namespaceName + "/" + step, duration / 1_000_000);
+        }
+    }
+
+    private void applyNamespace(String user, String namespaceName) {
+        Namespace namespace = new NamespaceBuilder().withNewMetadata().withName(namespaceName)
+                .addToLabels("argocd.argoproj.io/managed-by", argoApplicationNamespace + "-" + user)
+                .endMetadata().build();
+        kubernetesCalls.call("apply", "namespace", () -> client.resource(namespace).forceConflicts().serverSideApply());
+        LOGGER.info("Namespace " + namespaceName + " applied");
+    }
+
+    // give user admin rights to namespace
+    private void applyUserRoleBinding(String user, String namespaceName) {
+        String userRoleBindingName = user + "-admin-" + namespaceName;
+        RoleBinding userRoleBinding = new RoleBindingBuilder().withNewMetadata()
+                .withName(userRoleBindingName)
+                .withNamespace(namespaceName).endMetadata()
+                .addToSubjects(new SubjectBuilder().withKind("User").withName(user)
+                        .withNamespace(namespaceName).build())
+                .withRoleRef(new RoleRefBuilder().withKind("ClusterRole").withName("admin")
+                        .withApiGroup("rbac.authorization.k8s.io").build())
+                .build();
+        kubernetesCalls.call("apply", "rolebinding",
+                () -> client.resource(userRoleBinding).forceConflicts().serverSideApply());
+        LOGGER.info("RoleBinding " + userRoleBindingName + " applied");
+    }
+
+    // give argocd service account admin rights to namespace
+    private void applyArgoRoleBinding(String user, String namespaceName) {
+        String argoRoleBindingName = "argo-admin-" + namespaceName;
+        RoleBinding argoRoleBinding = new RoleBindingBuilder().withNewMetadata()
+                .withName(argoRoleBindingName)
+                .withNamespace(namespaceName).endMetadata()
+                .addToSubjects(new SubjectBuilder()
+                        .withKind("ServiceAccount")
+                        .withName(argoApplicationName + "-" + user + "-argocd-application-controller")
+                        .withNamespace(argoApplicationNamespace + "-" + user).build())
+                .addToSubjects(new SubjectBuilder()
+                        .withKind("ServiceAccount")
+                        .withName(argoApplicationName + "-" + user + "-argocd-dex-server")
+                        .withNamespace(argoApplicationNamespace + "-" + user).build())
+                .withRoleRef(new RoleRefBuilder().withKind("ClusterRole").withName("admin")
+                        .withApiGroup("rbac.authorization.k8s.io").build())
+                .build();
+        kubernetesCalls.call("apply", "rolebinding",
+                () -> client.resource(argoRoleBinding).forceConflicts().serverSideApply());
+        LOGGER.info("RoleBinding " + argoRoleBindingName + " applied");
+    }
+}
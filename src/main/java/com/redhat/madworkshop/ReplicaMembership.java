@@ -0,0 +1,356 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseSpec;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderCallbacks;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfigBuilder;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.openshift.client.OpenShiftClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coordinates the replicas of the deployer through Leases in 'NAMESPACE', if 'REPLICA_COORDINATION_ENABLED' is
+ * true. Otherwise, or when the Leases are not accessible, this replica is the leader and owns every user.
+ * <p>
+ * One replica is elected leader with the Lease 'LEADER_LEASE_NAME' and runs the cluster-wide work, like the
+ * orphaned namespace sweep. Every replica also renews a member Lease of its own; the live members form a
+ * consistent-hash ring which assigns every user to one replica for the per-user background work. When a
+ * replica goes away, only its users move to the other replicas.
+ */
+@ApplicationScoped
+public class ReplicaMembership {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaMembership.class);
+
+    private static final String MEMBER_LABEL = "workshop-deployer/member";
+
+    private static final int VIRTUAL_NODES = 64;
+
+    @Inject
+    OpenShiftClient client;
+
+    @Inject
+    MeterRegistry registry;
+
+    private String namespace;
+
+    private String identity;
+
+    private String leaderLeaseName;
+
+    private int memberLeaseDuration;
+
+    private volatile SharedIndexInformer<Lease> memberInformer;
+
+    private ScheduledExecutorService renewExecutor;
+
+    private volatile CompletableFuture<?> election;
+
+    private volatile boolean stopped;
+
+    private volatile boolean leader;
+
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    private volatile Set<String> members = Set.of();
+
+    private volatile NavigableMap<Long, String> ring = new TreeMap<>();
+
+    private final List<Runnable> membershipListeners = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<Boolean>> leadershipListeners = new CopyOnWriteArrayList<>();
+
+    // before the other startup observers, so they can register their listeners
+    void onStart(@Observes @Priority(20) StartupEvent ev) {
+        namespace = System.getenv("NAMESPACE");
+        identity = System.getenv().getOrDefault("POD_NAME",
+                System.getenv().getOrDefault("HOSTNAME", UUID.randomUUID().toString()));
+        leaderLeaseName = System.getenv().getOrDefault("LEADER_LEASE_NAME", "workshop-deployer-leader");
+        boolean coordinationEnabled = Boolean.parseBoolean(
+                System.getenv().getOrDefault("REPLICA_COORDINATION_ENABLED", "false"));
+        String memberLeaseDurationStr = System.getenv().getOrDefault("MEMBER_LEASE_DURATION_SECONDS", "30");
+        if (!memberLeaseDurationStr.matches("\\d+") || Integer.parseInt(memberLeaseDurationStr) < 3) {
+            throw new RuntimeException("Environment variable 'MEMBER_LEASE_DURATION_SECONDS' is not a number >= 3.");
+        }
+        memberLeaseDuration = Integer.parseInt(memberLeaseDurationStr);
+
+        Gauge.builder("workshop.replicas.members", this, m -> m.members.size())
+                .description("Number of live deployer replicas")
+                .register(registry);
+        Gauge.builder("workshop.replicas.leader", this, m -> m.leader ? 1 : 0)
+                .description("Whether this replica is the leader")
+                .register(registry);
+
+        renewExecutor = Executors.newSingleThreadScheduledExecutor();
+        if (!coordinationEnabled) {
+            LOGGER.info("Replica coordination is disabled, running as single replica");
+            runAsSingleReplica();
+            return;
+        }
+        // off the startup path, missing RBAC or a slow API server must not stop the startup
+        renewExecutor.execute(this::joinMembers);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        stopped = true;
+        if (election != null) {
+            election.cancel(true);
+        }
+        if (renewExecutor != null) {
+            renewExecutor.shutdownNow();
+        }
+        if (memberInformer != null) {
+            memberInformer.stop();
+            // hand the users over right away instead of after the Lease expired
+            try {
+                client.leases().inNamespace(namespace).withName(memberLeaseName()).delete();
+            } catch (KubernetesClientException e) {
+                LOGGER.warn("Could not delete member Lease of " + identity + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public String identity() {
+        return identity;
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * @return completed once the members are known, or this replica fell back to running as single replica
+     */
+    public CompletionStage<Void> ready() {
+        return ready.minimalCompletionStage();
+    }
+
+    /**
+     * @return whether the per-user background work of the user runs on this replica
+     */
+    public boolean owns(String user) {
+        NavigableMap<Long, String> current = ring;
+        if (current.isEmpty()) {
+            return true;
+        }
+        Map.Entry<Long, String> entry = current.ceilingEntry(hash(user));
+        return identity.equals(entry != null ? entry.getValue() : current.firstEntry().getValue());
+    }
+
+    /**
+     * Registers a listener which is called whenever replicas join or leave, i.e. the ownership of users changed.
+     */
+    public void addMembershipListener(Runnable listener) {
+        membershipListeners.add(listener);
+    }
+
+    /**
+     * Registers a listener which is called with true when this replica becomes leader, and with false when it
+     * loses the leadership. Called right away if this replica is the leader already.
+     */
+    public void addLeadershipListener(Consumer<Boolean> listener) {
+        leadershipListeners.add(listener);
+        if (leader) {
+            listener.accept(true);
+        }
+    }
+
+    private void joinMembers() {
+        SharedIndexInformer<Lease> informer = null;
+        try {
+            renewMemberLease();
+            informer = client.leases().inNamespace(namespace).withLabel(MEMBER_LABEL).runnableInformer(0);
+            informer.addEventHandler(new ResourceEventHandler<>() {
+                @Override
+                public void onAdd(Lease obj) {
+                    updateMembers();
+                }
+
+                @Override
+                public void onUpdate(Lease oldObj, Lease newObj) {
+                    updateMembers();
+                }
+
+                @Override
+                public void onDelete(Lease obj, boolean deletedFinalStateUnknown) {
+                    updateMembers();
+                }
+            });
+            informer.start().toCompletableFuture().get(memberLeaseDuration, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOGGER.error("Leases in namespace '" + namespace + "' are not available, running as single replica. "
+                    + "Other replicas do the same, so run only one replica until this is fixed.", e);
+            if (informer != null) {
+                informer.stop();
+            }
+            runAsSingleReplica();
+            return;
+        }
+        memberInformer = informer;
+        updateMembers();
+        ready.complete(null);
+
+        // expired Leases cause no event, so the members are also recomputed on every renewal
+        renewExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                renewMemberLease();
+            } catch (Exception e) {
+                LOGGER.error("Exception while renewing member Lease of " + identity, e);
+            }
+            updateMembers();
+        }, memberLeaseDuration / 3, memberLeaseDuration / 3, TimeUnit.SECONDS);
+        elect();
+    }
+
+    // owns() is true for every user while the ring is empty
+    private void runAsSingleReplica() {
+        members = Set.of(identity);
+        ready.complete(null);
+        setLeader(true);
+    }
+
+    private void elect() {
+        if (stopped) {
+            return;
+        }
+        election = client.leaderElector().withConfig(new LeaderElectionConfigBuilder()
+                        .withName(leaderLeaseName)
+                        .withLock(new LeaseLock(namespace, leaderLeaseName, identity))
+                        .withLeaseDuration(Duration.ofSeconds(15))
+                        .withRenewDeadline(Duration.ofSeconds(10))
+                        .withRetryPeriod(Duration.ofSeconds(2))
+                        .withReleaseOnCancel(true)
+                        .withLeaderCallbacks(new LeaderCallbacks(
+                                () -> setLeader(true),
+                                () -> setLeader(false),
+                                newLeader -> LOGGER.info("Replica " + newLeader + " is the leader")))
+                        .build())
+                .build().start();
+        // the elector gives up once the leadership is lost, keep competing for it
+        election.whenComplete((v, t) -> {
+            if (stopped) {
+                return;
+            }
+            if (t != null) {
+                LOGGER.error("Leader election of " + identity + " failed", t);
+            }
+            renewExecutor.schedule(this::elect, 2, TimeUnit.SECONDS);
+        });
+    }
+
+    private void setLeader(boolean leading) {
+        leader = leading;
+        LOGGER.info("Replica " + identity + (leading ? " became" : " is no longer") + " the leader");
+        leadershipListeners.forEach(listener -> {
+            try {
+                listener.accept(leading);
+            } catch (Exception e) {
+                LOGGER.error("Exception in leadership listener", e);
+            }
+        });
+    }
+
+    private void renewMemberLease() {
+        Lease lease = new LeaseBuilder().withNewMetadata()
+                .withName(memberLeaseName())
+                .withNamespace(namespace)
+                .addToLabels(MEMBER_LABEL, "true")
+                .endMetadata()
+                .withNewSpec()
+                .withHolderIdentity(identity)
+                .withLeaseDurationSeconds(memberLeaseDuration)
+                .withRenewTime(ZonedDateTime.now(ZoneOffset.UTC))
+                .endSpec()
+                .build();
+        // not shed by KubernetesCalls, like the leader election: a missed renewal would move the users away
+        client.resource(lease).forceConflicts().serverSideApply();
+    }
+
+    private synchronized void updateMembers() {
+        if (memberInformer == null) {
+            return;
+        }
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        Set<String> live = new TreeSet<>();
+        memberInformer.getStore().list().forEach(lease -> {
+            LeaseSpec spec = lease.getSpec();
+            if (spec != null && spec.getHolderIdentity() != null && spec.getRenewTime() != null
+                    && spec.getLeaseDurationSeconds() != null
+                    && spec.getRenewTime().plusSeconds(spec.getLeaseDurationSeconds()).isAfter(now)) {
+                live.add(spec.getHolderIdentity());
+            }
+        });
+        // this replica takes part as long as it runs, even when its own Lease was not seen yet
+        live.add(identity);
+        if (live.equals(members)) {
+            return;
+        }
+        NavigableMap<Long, String> newRing = new TreeMap<>();
+        live.forEach(member -> {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                newRing.put(hash(member + "#" + i), member);
+            }
+        });
+        members = Set.copyOf(live);
+        ring = newRing;
+        LOGGER.info("Replica members changed to " + live);
+        membershipListeners.forEach(listener -> {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                LOGGER.error("Exception in membership listener", e);
+            }
+        });
+    }
+
+    private String memberLeaseName() {
+        return "workshop-deployer-member-" + identity;
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
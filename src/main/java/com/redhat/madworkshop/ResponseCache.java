@@ -0,0 +1,158 @@
+package com.redhat.madworkshop;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Serialized per-user responses with their ETag, so a poll without changes neither rebuilds the response nor
+ * sends it again. The cache holds at most 'RESPONSE_CACHE_SIZE' entries, least recently used first out.
+ * The modules of a user are evicted on every change of one of their Applications, and everything is evicted
+ * when the module catalog is reloaded.
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    static final String MODULES = "modules";
+
+    static final String GLOBAL_CONFIG = "config";
+
+    @Inject
+    ApplicationCache applicationCache;
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Map<String, CachedResponse> entries;
+
+    // a response built while its key was evicted may be stale and is not cached; the versions are per key, so
+    // the frequent evictions of other users do not prevent caching. Holds one entry per evicted key, guarded by
+    // entries
+    private final Map<String, Long> versions = new HashMap<>();
+
+    // bumped when everything is evicted, guarded by entries
+    private long epoch;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    void onStart(@Observes StartupEvent ev) {
+        String sizeStr = System.getenv().getOrDefault("RESPONSE_CACHE_SIZE", "2000");
+        if (!sizeStr.matches("\\d+")) {
+            throw new RuntimeException("Environment variable 'RESPONSE_CACHE_SIZE' is NaN.");
+        }
+        int maxSize = Integer.parseInt(sizeStr);
+        entries = Collections.synchronizedMap(new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxSize;
+            }
+        });
+        hits = registry.counter("workshop.response.cache.requests", "result", "hit");
+        misses = registry.counter("workshop.response.cache.requests", "result", "miss");
+        Gauge.builder("workshop.response.cache.size", this, c -> c.entries.size())
+                .description("Number of serialized responses in the response cache")
+                .register(registry);
+
+        applicationCache.subscribe((resource, deleted) -> {
+            String user = applicationCache.userForNamespace(resource.getMetadata().getNamespace());
+            if (user != null) {
+                evict(key(MODULES, user));
+            }
+        });
+        catalogLoader.addListener(this::clear);
+    }
+
+    /**
+     * @param cacheable whether the response may be cached, e.g. not while the informer has not synced
+     * @return the cached response, or the response built by the supplier
+     */
+    public CachedResponse get(String endpoint, String user, boolean cacheable, Supplier<String> body) {
+        String key = key(endpoint, user);
+        CachedResponse cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long startEpoch;
+        long startVersion;
+        synchronized (entries) {
+            startEpoch = epoch;
+            startVersion = versions.getOrDefault(key, 0L);
+        }
+        String content = body.get();
+        CachedResponse response = new CachedResponse(content, etag(content));
+        if (cacheable) {
+            synchronized (entries) {
+                if (epoch == startEpoch && versions.getOrDefault(key, 0L) == startVersion) {
+                    entries.put(key, response);
+                }
+            }
+        }
+        return response;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            epoch++;
+            entries.clear();
+            // builds in progress are already rejected by the epoch
+            versions.clear();
+        }
+    }
+
+    private void evict(String key) {
+        synchronized (entries) {
+            versions.merge(key, 1L, Long::sum);
+            entries.remove(key);
+        }
+    }
+
+    private static String key(String endpoint, String user) {
+        return endpoint + "/" + user;
+    }
+
+    private static String etag(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record CachedResponse(String body, String etag) {
+
+        /**
+         * @param ifNoneMatch the If-None-Match header of the request, may be null
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            return Arrays.stream(ifNoneMatch.split(",")).map(String::trim)
+                    .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                    .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.redhat.madworkshop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * String with '{{ __user }}' placeholders, split once into its literal parts so rendering is a plain concatenation.
+ */
+public final class UserTemplate {
+
+    static final String PLACEHOLDER = "{{ __user }}";
+
+    private final String[] parts;
+
+    private final int literalLength;
+
+    private UserTemplate(String[] parts) {
+        this.parts = parts;
+        int length = 0;
+        for (String part : parts) {
+            length += part.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static UserTemplate compile(String template) {
+        List<String> parts = new ArrayList<>();
+        int from = 0;
+        int index;
+        while ((index = template.indexOf(PLACEHOLDER, from)) >= 0) {
+            parts.add(template.substring(from, index));
+            from = index + PLACEHOLDER.length();
+        }
+        parts.add(template.substring(from));
+        return new UserTemplate(parts.toArray(new String[0]));
+    }
+
+    public boolean hasPlaceholder() {
+        return parts.length > 1;
+    }
+
+    public String render(String user) {
+        if (parts.length == 1) {
+            return parts[0];
+        }
+        StringBuilder sb = new StringBuilder(literalLength + (parts.length - 1) * user.length());
+        sb.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            sb.append(user).append(parts[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.join(PLACEHOLDER, parts);
+    }
+}
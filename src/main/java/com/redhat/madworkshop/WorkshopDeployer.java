@@ -1,17 +1,11 @@
 package com.redhat.madworkshop;
 
-import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
-import io.fabric8.kubernetes.api.model.Namespace;
-import io.fabric8.kubernetes.api.model.NamespaceBuilder;
-import io.fabric8.kubernetes.api.model.rbac.*;
-import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
 import io.fabric8.openshift.client.OpenShiftClient;
 import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.infrastructure.Infrastructure;
-import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
@@ -20,29 +14,50 @@ import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
+import java.net.URI;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 @Path("/api")
 public class WorkshopDeployer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WorkshopDeployer.class);
 
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
     @Inject
     OpenShiftClient client;
 
-    private JsonArray modules;
+    @Inject
+    ApplicationCache applicationCache;
+
+    @Inject
+    DeploymentJobs deploymentJobs;
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    @Inject
+    KubernetesCalls kubernetesCalls;
+
+    @Inject
+    ResponseCache responseCache;
+
+    @Inject
+    BlockingExecution blockingExecution;
+
+    // the Kubernetes calls block, concurrency towards the API server is capped in KubernetesCalls
+    private Executor blocking;
 
     private String namespace;
 
@@ -56,29 +71,17 @@ public class WorkshopDeployer {
 
     private String argoApplicationNamespace;
 
-    private String argoApplicationName;
-
-    private String maxTimeToWaitStr;
-
-    private String intervalStr;
-
-    private ScheduledExecutorService executorService;
-
     private String userPassword;
 
     void onStart(@Observes StartupEvent ev) {
-        LOGGER.info("Loading configmaps...");
         namespace = System.getenv("NAMESPACE");
         allowedModulesCount = System.getenv().getOrDefault("ALLOWED_MODULES_COUNT", "2");
         showRoomHostPrefix = System.getenv("SHOWROOM_HOST_PREFIX");
         showRoomPath = System.getenv("SHOWROOM_PATH");
         openShiftDomain = System.getenv("OPENSHIFT_DOMAIN");
         argoApplicationNamespace = System.getenv("ARGO_NAMESPACE_PREFIX");
-        argoApplicationName = System.getenv().getOrDefault("ARGO_NAME_PREFIX", "globex-gitops");
-        maxTimeToWaitStr = System.getenv().getOrDefault("DELETE_MAX_TIME_TO_WAIT_MS", "300000");
-        intervalStr = System.getenv().getOrDefault("INTERVAL", "3000");
-        executorService = Executors.newScheduledThreadPool(1);
         userPassword = System.getenv("USER_PASSWORD");
+        blocking = blockingExecution.executor("endpoints");
 
         if (namespace == null || namespace.isBlank()) {
             throw new RuntimeException("Environment variable 'NAMESPACE' for namespace not set.");
@@ -98,269 +101,177 @@ public class WorkshopDeployer {
         if (userPassword == null) {
             throw new RuntimeException("Environment variable 'USER_PASSWORD' is not set.");
         }
-        String configmap = System.getenv().getOrDefault("CONFIGMAP_MODULES", "workshop-modules");
-        ConfigMap cmModules = client.configMaps().inNamespace(namespace).withName(configmap).get();
-        if (cmModules == null) {
-            throw new RuntimeException("Configmap '" + configmap + "' not found in namespace '" + namespace + "'.");
-        }
-        String modulesKey = System.getenv().getOrDefault("CONFIGMAP_MODULES_KEY", "modules.json");
-        String modulesStr = cmModules.getData().get(modulesKey);
-        if (modulesStr == null || modulesStr.isEmpty()) {
-            throw new RuntimeException("Entry '" + modulesKey + "' not found in ConfigMap '" + configmap + "'.");
-        }
-        modules = new JsonObject(modulesStr).getJsonArray("modules");
-
-        modules.stream().forEach(o -> {
-            JsonObject module = (JsonObject) o;
-            ConfigMap cm = client.configMaps().inNamespace(namespace).withName(module.getString("configMap")).get();
-            if (cm != null) {
-                String application = cm.getData().get(cm.getMetadata().getName() + ".json");
-                module.put("application", application);
-                String applicationName = new JsonObject(application).getJsonObject("metadata").getString("name");
-                module.put("applicationName", applicationName);
-                LOGGER.info("Loaded application for " + applicationName);
-            }
-        });
     }
 
+    /**
+     * Answers with 304 if the module list did not change since the ETag sent in If-None-Match.
+     */
     @GET
     @Path("/modules")
     @Produces(MediaType.APPLICATION_JSON)
     public Uni<Response> workShopModules(@Context HttpHeaders headers) {
         String user = getUser(headers);
-        return Uni.createFrom().voidItem().emitOn(Infrastructure.getDefaultWorkerPool())
-                .onItem().transform(v -> {
-                    List<GenericKubernetesResource> applications = listApplicationsForUser(user);
-                    JsonObject response = new JsonObject();
-                    JsonArray modulesArray = new JsonArray();
-
-                    modules.stream().forEach(o -> {
-                        JsonObject jsonObject = (JsonObject) o;
-                        JsonObject module = new JsonObject();
-                        module.put("name", jsonObject.getString("name"));
-                        module.put("description", jsonObject.getString("description"));
-                        module.put("primaryTags", jsonObject.getJsonObject("tags").getJsonArray("primary"));
-                        module.put("secondaryTags", jsonObject.getJsonObject("tags").getJsonArray("secondary"));
-                        module.put("isDefault", jsonObject.getBoolean("isDefault"));
-                        module.put("application", jsonObject.getString("applicationName"));
-
-                        Optional<GenericKubernetesResource> application = applications.stream()
-                                .filter(r -> r.getMetadata().getName().equals(jsonObject.getString("applicationName")))
-                                .findFirst();
-                        if (application.isPresent()) {
-                            module.put("deployed", true);
-                            if (application.get().getMetadata().getDeletionTimestamp() != null) {
-                                module.put("deleting", true);
-                            } else {
-                                module.put("deleting", false);
-                            }
-                            module.put("status", application.get().get("status", "sync", "status"));
-                            module.put("health", application.get().get("status", "health", "status"));
-                        } else {
-                            module.put("deployed", false);
-                            module.put("deleting", false);
-                            module.put("status", "");
-                            module.put("health", "");
-                        }
-                        modulesArray.add(module);
-                    });
-                    response.put("modules", modulesArray);
-                    return response.toString();
-                }).onItem().transform(resp -> Response.ok(resp).build())
+        return onBlockingThread()
+                .onItem().transform(v -> responseCache.get(ResponseCache.MODULES, user, applicationCache.hasSynced(),
+                        () -> modulesJson(user)))
+                .onItem().transform(resp -> conditionalResponse(resp, headers))
+                .onFailure(ApiServerUnavailableException.class).recoverWithItem(throwable ->
+                        ApiServerExceptionMapper.tooManyRequests((ApiServerUnavailableException) throwable))
                 .onFailure().recoverWithItem(throwable -> {
                     LOGGER.error("Exception while getting modules for user " + user, throwable);
                     return Response.serverError().build();
                 });
     }
 
+    /**
+     * Sends the status of every module first, then only the changes. A comment is sent every
+     * HEARTBEAT_INTERVAL, so the idle timeout of the router (30s by default) does not close the stream.
+     */
+    @GET
+    @Path("/modules/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public Multi<OutboundSseEvent> workShopModulesStream(@Context HttpHeaders headers, @Context Sse sse) {
+        String user = getUser(headers);
+        Multi<OutboundSseEvent> statuses = Multi.createFrom().<String>emitter(emitter -> {
+            Map<String, JsonObject> lastSent = new ConcurrentHashMap<>();
+            ApplicationCache.ApplicationListener listener = (resource, deleted) -> {
+                String application = resource.getMetadata().getName();
+                if (catalogLoader.getModule(application).isEmpty()) {
+                    return;
+                }
+                JsonObject status = moduleStatus(deleted ? null : resource).put("application", application);
+                if (!status.equals(lastSent.put(application, status))) {
+                    emitter.emit(status.toString());
+                }
+            };
+            Runnable unsubscribe = applicationCache.subscribe(user, listener);
+            emitter.onTermination(unsubscribe);
+
+            // initial state, afterwards only changes are sent
+            Map<String, GenericKubernetesResource> applications = new HashMap<>();
+            listApplicationsForUser(user).forEach(r -> applications.put(r.getMetadata().getName(), r));
+            catalogLoader.catalog().modules().forEach(module -> {
+                String application = module.applicationName();
+                JsonObject status = moduleStatus(applications.get(application)).put("application", application);
+                if (lastSent.putIfAbsent(application, status) == null) {
+                    emitter.emit(status.toString());
+                }
+            });
+        }).runSubscriptionOn(blocking).map(status -> sse.newEventBuilder().data(status).build());
+        Multi<OutboundSseEvent> heartbeats = Multi.createFrom().ticks().every(HEARTBEAT_INTERVAL)
+                .onOverflow().drop()
+                .map(tick -> sse.newEventBuilder().comment("heartbeat").build());
+        return Multi.createBy().merging().streams(statuses, heartbeats);
+    }
+
     @GET
     @Path("/getGlobalConfig")
     @Produces(MediaType.APPLICATION_JSON)
     public Uni<Response> getGlobalConfig(@Context HttpHeaders headers) {
         String user = getUser(headers);
-        JsonObject module = new JsonObject();
-        module.put("ALLOWED_MODULES_COUNT", allowedModulesCount);
-        module.put("SHOWROOM_URL", "https://" + showRoomHostPrefix + "-" + user + "." + openShiftDomain + showRoomPath);
-        module.put("USER", user);
-        module.put("PASSWORD", userPassword);
-        module.put("OPENSHIFT_DOMAIN", openShiftDomain);
-
-        return Uni.createFrom().voidItem().emitOn(Infrastructure.getDefaultWorkerPool())
-                .onItem().transform(returnModule -> module)
-                .onItem().transform(returnModule -> {
-                    if (returnModule == null) {
-                        return Response.status(Response.Status.NOT_FOUND).build();
-                    } else {
-                        return Response.ok(returnModule).build();
-                    }
-                })
+        return Uni.createFrom().item(() -> responseCache.get(ResponseCache.GLOBAL_CONFIG, user, true, () -> {
+                    JsonObject module = new JsonObject();
+                    module.put("ALLOWED_MODULES_COUNT", allowedModulesCount);
+                    module.put("SHOWROOM_URL",
+                            "https://" + showRoomHostPrefix + "-" + user + "." + openShiftDomain + showRoomPath);
+                    module.put("USER", user);
+                    module.put("PASSWORD", userPassword);
+                    module.put("OPENSHIFT_DOMAIN", openShiftDomain);
+                    return module.encode();
+                }))
+                .onItem().transform(resp -> conditionalResponse(resp, headers))
                 .onFailure().recoverWithItem(throwable -> {
                     LOGGER.error("Exception while getting Global Config", throwable);
                     return Response.serverError().build();
                 });
     }
 
+    /**
+     * Starts the deploy as a job and answers with 202 and the job. A deploy of the same application which is
+     * still in flight is joined instead of started again.
+     */
     @POST
     @Path("/deploy")
     @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
     public Uni<Response> deployApplication(String input, @Context HttpHeaders headers) {
         String user = getUser(headers);
         String application = new JsonObject(input).getString("application");
-        return Uni.createFrom().voidItem().emitOn(Infrastructure.getDefaultWorkerPool())
-                .onItem().transform(v -> {
-                    Optional<JsonObject> module = getModule(application);
-                    if (module.isEmpty()) {
-                        LOGGER.warn("Module for application '" + application + "' not found.");
-                        return new JsonObject().put("status", "notchanged");
-                    }
-
-                    // create namespaces for module
-                    JsonArray namespaces = module.get().getJsonArray("namespaces");
-                    if (namespaces == null) {
-                        namespaces = new JsonArray();
-                    }
-                    namespaces.stream().map(o -> ((String) o).replaceAll("\\{\\{ __user }}", user))
-                            .forEach(namespaceName -> {
-                                // create namespace
-                                Namespace namespace = client.namespaces().withName(namespaceName).get();
-                                if (namespace != null) {
-                                    LOGGER.warn("Namespace " + namespaceName + " already exists");
-                                } else {
-                                    namespace = new NamespaceBuilder().withNewMetadata().withName(namespaceName)
-                                            .addToLabels("argocd.argoproj.io/managed-by",
-                                                    argoApplicationNamespace + "-" + user)
-                                            .endMetadata().build();
-                                    client.resource(namespace).create();
-                                    LOGGER.info("Namespace " + namespaceName + " created");
-                                }
-                                // give user admin rights to namespace
-                                String userRoleBindingName = user + "-admin-" + namespaceName;
-                                RoleBinding userRoleBinding = client.rbac().roleBindings().inNamespace(namespaceName)
-                                        .withName(userRoleBindingName).get();
-                                if (userRoleBinding != null) {
-                                    LOGGER.warn("RoleBinding " + userRoleBindingName + " already exists");
-                                } else {
-                                    userRoleBinding = new RoleBindingBuilder().withNewMetadata()
-                                            .withName(userRoleBindingName)
-                                            .withNamespace(namespaceName).endMetadata()
-                                            .addToSubjects(new SubjectBuilder().withKind("User").withName(user)
-                                                    .withNamespace(namespaceName).build())
-                                            .withRoleRef(new RoleRefBuilder().withKind("ClusterRole").withName("admin")
-                                                    .withApiGroup("rbac.authorization.k8s.io").build())
-                                            .build();
-                                    client.resource(userRoleBinding).create();
-                                    LOGGER.info("RoleBinding " + userRoleBindingName + " created");
-                                }
-                                // give argocd service account admin rights to namespace
-                                String argoRoleBindingName = "argo-admin-" + namespaceName;
-                                RoleBinding argoRoleBinding = client.rbac().roleBindings().inNamespace(namespaceName)
-                                        .withName(argoRoleBindingName).get();
-                                if (argoRoleBinding != null) {
-                                    LOGGER.warn("RoleBinding " + argoRoleBindingName + " already exists");
-                                } else {
-                                    argoRoleBinding = new RoleBindingBuilder().withNewMetadata()
-                                            .withName(argoRoleBindingName)
-                                            .withNamespace(namespaceName).endMetadata()
-                                            .addToSubjects(new SubjectBuilder()
-                                                    .withKind("ServiceAccount")
-                                                    .withName(argoApplicationName + "-" + user
-                                                            + "-argocd-application-controller")
-                                                    .withNamespace(argoApplicationNamespace + "-" + user).build())
-                                            .addToSubjects(new SubjectBuilder()
-                                                    .withKind("ServiceAccount")
-                                                    .withName(argoApplicationName + "-" + user + "-argocd-dex-server")
-                                                    .withNamespace(argoApplicationNamespace + "-" + user).build())
-                                            .withRoleRef(new RoleRefBuilder().withKind("ClusterRole").withName("admin")
-                                                    .withApiGroup("rbac.authorization.k8s.io").build())
-                                            .build();
-                                    client.resource(argoRoleBinding).create();
-                                    LOGGER.info("RoleBinding " + argoRoleBindingName + " created");
-                                }
-                            });
-
-                    ResourceDefinitionContext context = new ResourceDefinitionContext.Builder()
-                            .withGroup("argoproj.io")
-                            .withVersion("v1alpha1")
-                            .withKind("Application")
-                            .withPlural("applications")
-                            .withNamespaced(true)
-                            .build();
-
-                    GenericKubernetesResource resource = client.genericKubernetesResources(context)
-                            .inNamespace(argoApplicationNamespace + "-" + user).withName(application).get();
-                    if (resource != null) {
-                        LOGGER.warn("Application '" + application + "' is already deployed for user '" + user + "'");
-                        return new JsonObject().put("status", "notchanged");
-                    }
-                    LOGGER.info("Deploying application '" + application + "' for user '" + user + "'");
-                    String applicationDef = module.get().getString("application");
-
-                    applicationDef = applicationDef.replaceAll("\\{\\{ __user }}", user);
-                    InputStream inputStream = new ByteArrayInputStream(applicationDef.getBytes());
-                    GenericKubernetesResource newResource = client.genericKubernetesResources(context)
-                            .inNamespace(argoApplicationNamespace + "-" + user).load(inputStream).create();
-                    return new JsonObject().put("status", "ok")
-                            .put("application", new JsonObject().put("deployed", true).put("deleting", false)
-                                    .put("status",
-                                            newResource.get("status", "sync", "status") == null ? ""
-                                                    : newResource.get("status", "sync", "status"))
-                                    .put("health", newResource.get("status", "health", "status") == null ? ""
-                                            : newResource.get("status", "health", "status")));
-                })
-                .onItem().transform(resp -> Response.ok(resp.toString()).build())
-                .onFailure().recoverWithItem(throwable -> {
-                    LOGGER.error("Exception while getting modules for user " + user, throwable);
-                    return Response.serverError().build();
-                });
+        return submit(user, application, DeploymentJob.Action.DEPLOY);
     }
 
     @POST
     @Path("/undeploy")
     @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
     public Uni<Response> undeployApplication(String input, @Context HttpHeaders headers) {
         String user = getUser(headers);
         String application = new JsonObject(input).getString("application");
-        return Uni.createFrom().voidItem().emitOn(Infrastructure.getDefaultWorkerPool())
-                .onItem().transform(v -> {
-                    ResourceDefinitionContext context = new ResourceDefinitionContext.Builder()
-                            .withGroup("argoproj.io")
-                            .withVersion("v1alpha1")
-                            .withKind("Application")
-                            .withPlural("applications")
-                            .withNamespaced(true)
-                            .build();
-
-                    GenericKubernetesResource resource = client.genericKubernetesResources(context)
-                            .inNamespace(argoApplicationNamespace + "-" + user).withName(application).get();
-                    if (resource == null) {
-                        LOGGER.warn("Application '" + application + "' not found for user '" + user + "'");
-                        return new JsonObject().put("status", "notchanged");
-                    }
-                    LOGGER.info("Undeploying application '" + application + "' for user '" + user + "'");
-                    client.genericKubernetesResources(context)
-                            .inNamespace(argoApplicationNamespace + "-" + user).withName(application).delete();
-
-                    // delete namespace asynchonously
-                    Instant timeLimit = Instant.now().plus(Duration.ofMillis(Long.parseLong(maxTimeToWaitStr)));
-                    Duration untilNextRun = Duration.ofMillis(Long.parseLong(intervalStr));
-                    CheckApplicationTask task = new CheckApplicationTask(application,
-                            argoApplicationNamespace + "-" + user, user, context,
-                            timeLimit, untilNextRun, client, executorService);
-                    executorService.schedule(task, 0, TimeUnit.SECONDS);
-
-                    return new JsonObject().put("status", "ok")
-                            .put("application", new JsonObject().put("deployed", true).put("deleting", true)
-                                    .put("status", "")
-                                    .put("health", ""));
-                })
-                .onItem().transform(resp -> Response.ok(resp.toString()).build())
+        return submit(user, application, DeploymentJob.Action.UNDEPLOY);
+    }
+
+    @GET
+    @Path("/jobs/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getJob(@PathParam("id") String id, @Context HttpHeaders headers) {
+        String user = getUser(headers);
+        return deploymentJobs.get(id)
+                .filter(job -> job.user().equals(user))
+                .map(job -> Response.ok(job.toJson().encode()).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+    }
+
+    private Uni<Response> submit(String user, String application, DeploymentJob.Action action) {
+        return onBlockingThread()
+                .onItem().transform(v -> deploymentJobs.submit(user, application, action))
+                .onItem().transform(job -> Response.accepted(new JsonObject().put("status", "accepted")
+                                .put("job", job.toJson()).encode())
+                        .location(URI.create("/api/jobs/" + job.id())).build())
+                .onFailure(DeploymentJobs.RejectedException.class).recoverWithItem(throwable ->
+                        Response.status(Response.Status.CONFLICT).entity(new JsonObject().put("status", "rejected")
+                                .put("error", ((DeploymentJobs.RejectedException) throwable).reason())
+                                .put("message", throwable.getMessage()).encode()).build())
+                .onFailure(ApiServerUnavailableException.class).recoverWithItem(throwable ->
+                        ApiServerExceptionMapper.tooManyRequests((ApiServerUnavailableException) throwable))
                 .onFailure().recoverWithItem(throwable -> {
-                    LOGGER.error("Exception while getting modules for user " + user, throwable);
+                    LOGGER.error("Exception while submitting " + action + " of '" + application + "' for user "
+                            + user, throwable);
                     return Response.serverError().build();
                 });
     }
 
-    private String getUser(HttpHeaders headers) {
+    private Uni<Void> onBlockingThread() {
+        return Uni.createFrom().voidItem().emitOn(blocking);
+    }
+
+    private String modulesJson(String user) {
+        Map<String, GenericKubernetesResource> applications = new HashMap<>();
+        listApplicationsForUser(user).forEach(r -> applications.put(r.getMetadata().getName(), r));
+
+        List<ModuleDescriptor> modules = catalogLoader.catalog().modules();
+        StringBuilder response = new StringBuilder(modules.size() * 512).append("{\"modules\":[");
+        for (int i = 0; i < modules.size(); i++) {
+            ModuleDescriptor module = modules.get(i);
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append(module.staticJson());
+            appendModuleStatus(response, applications.get(module.applicationName()));
+        }
+        return response.append("]}").toString();
+    }
+
+    // the browser has to revalidate, so a changed module status is never served from its cache
+    private static Response conditionalResponse(ResponseCache.CachedResponse response, HttpHeaders headers) {
+        if (response.matches(headers.getHeaderString(HttpHeaders.IF_NONE_MATCH))) {
+            return Response.notModified().header(HttpHeaders.ETAG, response.etag())
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache").build();
+        }
+        return Response.ok(response.body()).header(HttpHeaders.ETAG, response.etag())
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache").build();
+    }
+
+    static String getUser(HttpHeaders headers) {
         List<String> userTokenHeader = headers.getRequestHeader("X-Forwarded-User");
         if (userTokenHeader == null || userTokenHeader.isEmpty()) {
             LOGGER.warn("Header 'X-Forwarded-User' not present!");
@@ -370,96 +281,49 @@ public class WorkshopDeployer {
     }
 
     private List<GenericKubernetesResource> listApplicationsForUser(String user) {
+        if (applicationCache.hasSynced()) {
+            return applicationCache.applicationsForUser(user);
+        }
         try {
-            // Application cr
-            ResourceDefinitionContext context = new ResourceDefinitionContext.Builder()
-                    .withGroup("argoproj.io")
-                    .withVersion("v1alpha1")
-                    .withKind("Application")
-                    .withPlural("applications")
-                    .withNamespaced(true)
-                    .build();
-
-            return client.genericKubernetesResources(context)
-                    .inNamespace(argoApplicationNamespace + "-" + user)
-                    .list().getItems();
-
+            // informer not synced yet, fall back to listing the Application cr
+            return kubernetesCalls.call("list", "application",
+                    () -> client.genericKubernetesResources(ApplicationCache.APPLICATION_CONTEXT)
+                            .inNamespace(argoApplicationNamespace + "-" + user)
+                            .list().getItems());
+        } catch (ApiServerUnavailableException e) {
+            // shed instead of answering with no modules deployed
+            throw e;
         } catch (Exception e) {
             LOGGER.error("Exception while listing Applications for user " + user, e);
             return new ArrayList<>();
         }
     }
 
-    private Optional<JsonObject> getModule(String application) {
-        return modules.stream().filter(o -> {
-            JsonObject m = (JsonObject) o;
-            return m.getString("applicationName").equals(application);
-        }).map(o -> (JsonObject) o).findFirst();
-    }
-
-    private void deleteNamespaces(String application, String user) {
-        Optional<JsonObject> module = getModule(application);
-        if (module.isEmpty()) {
-            LOGGER.warn("Module for application '" + application + "' not found.");
+    private JsonObject moduleStatus(GenericKubernetesResource application) {
+        JsonObject status = new JsonObject();
+        if (application != null) {
+            status.put("deployed", true);
+            status.put("deleting", application.getMetadata().getDeletionTimestamp() != null);
+            status.put("status", application.get("status", "sync", "status"));
+            status.put("health", application.get("status", "health", "status"));
         } else {
-            JsonArray namespaces = module.get().getJsonArray("namespaces");
-            if (namespaces == null) {
-                namespaces = new JsonArray();
-            }
-            namespaces.stream().map(o -> ((String) o).replaceAll("\\{\\{ __user }}", user))
-                    .forEach(namespaceName -> {
-                        client.namespaces().withName(namespaceName).delete();
-                        LOGGER.info("Namespace " + namespaceName + " deleted");
-                    });
+            status.put("deployed", false);
+            status.put("deleting", false);
+            status.put("status", "");
+            status.put("health", "");
         }
+        return status;
     }
 
-    public class CheckApplicationTask implements Runnable {
-
-        private final String application;
-
-        private final String namespace;
-
-        private final String user;
-
-        private final Instant timeLimit;
-
-        private final Duration untilNextRun;
-
-        private final ResourceDefinitionContext context;
-
-        private final KubernetesClient client;
-
-        private final ScheduledExecutorService executorService;
-
-        public CheckApplicationTask(String application, String namespace, String user,
-                ResourceDefinitionContext context,
-                Instant timeLimit, Duration untilNextRun, KubernetesClient client,
-                ScheduledExecutorService executorService) {
-            this.application = application;
-            this.namespace = namespace;
-            this.user = user;
-            this.context = context;
-            this.timeLimit = timeLimit;
-            this.untilNextRun = untilNextRun;
-            this.client = client;
-            this.executorService = executorService;
-        }
-
-        @Override
-        public void run() {
-            if (Instant.now().isAfter(timeLimit)) {
-                LOGGER.warn("Application " + application + " was not deleted before timeout.");
-                return;
-            }
-            GenericKubernetesResource resource = client.genericKubernetesResources(context)
-                    .inNamespace(namespace).withName(application).get();
-            if (resource == null) {
-                LOGGER.info("Application " + application + " in namespace " + namespace + " deleted.");
-                WorkshopDeployer.this.deleteNamespaces(application, user);
-            } else {
-                this.executorService.schedule(this, this.untilNextRun.toSeconds(), TimeUnit.SECONDS);
-            }
+    private void appendModuleStatus(StringBuilder sb, GenericKubernetesResource application) {
+        if (application == null) {
+            sb.append(",\"deployed\":false,\"deleting\":false,\"status\":\"\",\"health\":\"\"}");
+            return;
         }
+        sb.append(",\"deployed\":true,\"deleting\":")
+                .append(application.getMetadata().getDeletionTimestamp() != null)
+                .append(",\"status\":").append(Json.encode(application.get("status", "sync", "status")))
+                .append(",\"health\":").append(Json.encode(application.get("status", "health", "status")))
+                .append('}');
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.redhat.madworkshop;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Ready once the module catalog is loaded and the Application informer completed its initial list, so a new
+ * replica only gets traffic when it can answer from its caches. Exposed on '/q/health/ready'.
+ */
+@Readiness
+@ApplicationScoped
+public class WorkshopReadinessCheck implements HealthCheck {
+
+    @Inject
+    ModuleCatalogLoader catalogLoader;
+
+    @Inject
+    ApplicationCache applicationCache;
+
+    @Override
+    public HealthCheckResponse call() {
+        boolean catalogLoaded = catalogLoader.isLoaded();
+        boolean applicationsSynced = applicationCache.hasSynced();
+        return HealthCheckResponse.named("workshop-deployer")
+                .status(catalogLoaded && applicationsSynced)
+                .withData("catalogLoaded", catalogLoaded)
+                .withData("modules", catalogLoader.catalog().modules().size())
+                .withData("applicationsSynced", applicationsSynced)
+                .build();
+    }
+}
@@ -1,11 +1,16 @@
 import { NgModule } from '@angular/core';
 import { RouterModule, Routes } from '@angular/router';
 import { HomeComponent } from './home/home.component';
+import { DashboardComponent } from './dashboard/dashboard.component';
 
-const routes = [];
+//hash routes, so the server needs no fallback to index.html for deep links
+const routes: Routes = [
+  { path: 'dashboard', component: DashboardComponent },
+  { path: '**', component: HomeComponent }
+];
 
 @NgModule({
-  imports: [RouterModule.forRoot(routes, {onSameUrlNavigation: "reload"})],
+  imports: [RouterModule.forRoot(routes, {onSameUrlNavigation: "reload", useHash: true})],
   exports: [RouterModule]
 })
 export class AppRoutingModule { }
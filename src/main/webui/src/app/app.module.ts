@@ -10,7 +10,9 @@ import { AppRoutingModule } from './app-routing.module';
 import { HomeComponent } from './home/home.component';
 import { ModuleListComponent } from './modulelist/modulelist.component';
 import { ModuleComponent } from './module/module.component';
+import { DashboardComponent } from './dashboard/dashboard.component';
 import { ModuleService } from './services/module.service';
+import { AdminService } from './services/admin.service';
 import { HttpErrorHandler } from './services/http-error-handler.service';
 import { MessageService } from './services/message.service';
 
@@ -25,7 +27,8 @@ export function initConfig(appConfig: AppConfigService) {
     AppComponent,
     HomeComponent,
     ModuleListComponent,
-    ModuleComponent
+    ModuleComponent,
+    DashboardComponent
   ],
   imports: [
     BrowserModule.withServerTransition({ appId: 'serverApp' }),
@@ -37,7 +40,7 @@ export function initConfig(appConfig: AppConfigService) {
     {
       provide: APP_INITIALIZER, useFactory: initConfig,  deps: [AppConfigService],  multi: true
     },
-    ModuleService, HttpErrorHandler, MessageService
+    ModuleService, AdminService, HttpErrorHandler, MessageService
   ],
   bootstrap: [AppComponent]
 })
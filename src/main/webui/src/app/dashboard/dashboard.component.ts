@@ -0,0 +1,69 @@
+import { Component, OnInit, OnDestroy, Inject, PLATFORM_ID } from '@angular/core';
+import { isPlatformBrowser } from '@angular/common';
+import { Subscription, timer } from 'rxjs';
+import { switchMap } from 'rxjs/operators';
+import { AdminService } from '../services/admin.service';
+
+@Component({
+  selector: 'app-dashboard',
+  templateUrl: './dashboard.component.html',
+  styleUrls: ['./dashboard.component.css']
+})
+export class DashboardComponent implements OnInit, OnDestroy {
+
+  testBrowser: boolean;
+  adminService: AdminService;
+  subscription: Subscription;
+  dashboard;
+  forbidden:boolean = false;
+
+  //sync and health states shown as columns, further states are added as they show up
+  syncStates = ['Synced', 'OutOfSync', 'Unknown'];
+  healthStates = ['Healthy', 'Progressing', 'Degraded', 'Missing', 'Suspended', 'Unknown'];
+
+  constructor(adminService: AdminService, @Inject(PLATFORM_ID) platformId:string) {
+    this.testBrowser = isPlatformBrowser(platformId);
+    this.adminService = adminService;
+  }
+
+  ngOnInit(): void {
+    if (this.testBrowser) {
+      //the aggregates are kept up to date on the server, a request is cheap
+      this.subscription = timer(0, 10000)
+        .pipe(switchMap(() => this.adminService.fetchDashboard()))
+        .subscribe(dashboard => {
+          this.forbidden = dashboard == null;
+          if (dashboard) {
+            this.dashboard = dashboard;
+            this.addStates(dashboard);
+          }
+        });
+    }
+  }
+
+  ngOnDestroy(): void {
+    if (this.subscription) {
+      this.subscription.unsubscribe();
+    }
+  }
+
+  addStates(dashboard) {
+    dashboard.modules.forEach(module => module.states.forEach(state => {
+      if (this.syncStates.indexOf(state.sync) < 0) {
+        this.syncStates.push(state.sync);
+      }
+      if (this.healthStates.indexOf(state.health) < 0) {
+        this.healthStates.push(state.health);
+      }
+    }));
+  }
+
+  countBySync(module, sync: string) {
+    return module.states.filter(s => s.sync === sync).reduce((acc, s) => acc + s.count, 0);
+  }
+
+  countByHealth(module, health: string) {
+    return module.states.filter(s => s.health === health).reduce((acc, s) => acc + s.count, 0);
+  }
+
+}
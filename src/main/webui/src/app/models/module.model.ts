@@ -13,5 +13,6 @@ export class Module {
     status: string;
     health: string;
     isDefault: boolean;
+    pending?: boolean;
 }
 
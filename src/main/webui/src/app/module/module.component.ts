@@ -1,4 +1,4 @@
-import { Component, Input, Output, EventEmitter } from '@angular/core';
+import { Component, Input, Output, EventEmitter, OnDestroy } from '@angular/core';
 import { Subscription } from 'rxjs';
 
 import { Module } from '../models/module.model';
@@ -9,9 +9,10 @@ import { ModuleService } from '../services/module.service';
   templateUrl: './module.component.html',
   styleUrls: ['./module.component.css']
 })
-export class ModuleComponent {
+export class ModuleComponent implements OnDestroy {
 
   moduleService: ModuleService;
+  jobSubscription: Subscription;
 
   @Input() module:Module;
   @Input() maxModulesReached:boolean = false;
@@ -26,32 +27,44 @@ export class ModuleComponent {
 
   deployApplication(application: string) {
      this.moduleService.deployApplication(application)
-       .subscribe(response => {
-          console.log(response);
-          if (response.status == 'ok') {
-            this.module.deployed = response.application.deployed;
-            this.module.deleting = response.application.deleting;
-            this.module.health = response.application.health;
-            this.module.status = response.application.status;
-          }
-       });
+       .subscribe(response => this.handleSubmitted(response));
   }
 
   undeployApplication(application: string) {
     if(confirm("Click OK to confirm, and Cancel to exit. This is action irreversible.")) {
       this.moduleService.undeployApplication(application)
-       .subscribe(response => {
-          console.log(response);
-          if (response.status == 'ok') {
-            this.module.deployed = response.application.deployed;
-            this.module.deleting = response.application.deleting;
-            this.module.health = response.application.health;
-            this.module.status = response.application.status;
+       .subscribe(response => this.handleSubmitted(response));
+    }
+  }
+
+  //the deploy or undeploy runs as a job on the server, the status stream updates the module once it is done
+  handleSubmitted(response) {
+    console.log(response);
+    if (response.status == 'accepted') {
+      this.module.pending = true;
+      this.jobSubscription?.unsubscribe();
+      this.jobSubscription = this.moduleService.watchJob(response.job.jobId)
+        .subscribe(job => {
+          if (job.state == 'succeeded' || job.state == 'failed') {
+            this.module.pending = false;
           }
-       });
+          if (job.state == 'failed') {
+            console.error('job failed', job);
+          }
+        });
+    } else if (response.status == 'rejected' && response.error == 'MAX_MODULES_DEPLOYED') {
+      this.sendAlert(response.error);
+    } else if (response.status == 'rejected' && response.error == 'OPERATION_IN_PROGRESS') {
+      this.sendAlert(response.error);
+    } else if (response.error == 'API_SERVER_UNAVAILABLE') {
+      this.sendAlert(response.error);
     }
   }
 
+  ngOnDestroy(): void {
+    this.jobSubscription?.unsubscribe();
+  }
+
   sendMessage(message: string) {
     this.messageEvent.emit(message)
   }
@@ -11,7 +11,7 @@ import { ModuleService } from '../services/module.service';
   styleUrls: ['./modulelist.component.css']
 })
 
-export class ModuleListComponent implements OnInit {
+export class ModuleListComponent implements OnInit, OnDestroy {
 
   testBrowser: boolean;
   modulelist = new ModuleList();
@@ -19,13 +19,16 @@ export class ModuleListComponent implements OnInit {
   moduleService: ModuleService;
   subscription: Subscription;
   router: Router
-  interval:any;
+  statusSubscription: Subscription;
+  latestModuleStatus = {};
   showFilterCard:boolean = true;
   globalConfig;
 
   //warning messages
   alertMessages = {
-    "MAX_MODULES_DEPLOYED" : {"type":"warning", "text": "You have reached the maximum number of deployable modules. Please undeploy any of the already deployed modules to deploy additional modules."}
+    "MAX_MODULES_DEPLOYED" : {"type":"warning", "text": "You have reached the maximum number of deployable modules. Please undeploy any of the already deployed modules to deploy additional modules."},
+    "OPERATION_IN_PROGRESS" : {"type":"warning", "text": "The module is still being deployed or undeployed. Please wait until it has finished and try again."},
+    "API_SERVER_UNAVAILABLE" : {"type":"warning", "text": "The cluster is busy at the moment. Please try again in a minute."}
   }
   currentAlert = null;
   filterDeployedModules:boolean = false;
@@ -41,19 +44,46 @@ export class ModuleListComponent implements OnInit {
     if (this.testBrowser) {
       this.fetchModuleList();
       this.getGlobalConfig();
-      this.interval = setInterval(()=>{
-        this.fetchModuleList();
-      },10000);
+      this.statusSubscription = this.moduleService.streamModuleStatus().subscribe(status => {
+        //the stream was closed by an error response, changes may have been missed until it is reopened
+        if (status.resync) {
+          this.fetchModuleList();
+          return;
+        }
+        this.updateModuleStatus(status);
+      });
+    }
+  }
+
+  ngOnDestroy(): void {
+    if (this.statusSubscription) {
+      this.statusSubscription.unsubscribe();
     }
   }
 
   fetchModuleList() {
     this.moduleService.fetchModuleList().subscribe(modulelist => {
       this.modulelist = modulelist;
+      Object.values(this.latestModuleStatus).forEach(status => this.updateModuleStatus(status));
       this.getModuleTagFilters();
     });
   }
 
+  updateModuleStatus(status) {
+    //keep the latest status, the stream can be faster than the module list
+    this.latestModuleStatus[status.application] = status;
+    if (!this.modulelist.modules) {
+      return;
+    }
+    let module = this.modulelist.modules.find(o => o.application === status.application);
+    if (module) {
+      module.deployed = status.deployed;
+      module.deleting = status.deleting;
+      module.status = status.status;
+      module.health = status.health;
+    }
+  }
+
   getGlobalConfig() {
     this.moduleService.getGlobalConfig().subscribe(globalConfig => {
       console.log("globalConfig", globalConfig)
@@ -68,7 +98,7 @@ export class ModuleListComponent implements OnInit {
 
 
   showAlert(errorCode) {
-    this.currentAlert = this.alertMessages.MAX_MODULES_DEPLOYED;
+    this.currentAlert = this.alertMessages[errorCode] || this.alertMessages.MAX_MODULES_DEPLOYED;
   }
 
   refreshComponent() {
@@ -0,0 +1,27 @@
+import { Injectable } from "@angular/core";
+import { HttpClient } from '@angular/common/http';
+import { Observable } from 'rxjs';
+import { catchError } from 'rxjs/operators';
+import { HandleError, HttpErrorHandler } from './http-error-handler.service';
+
+@Injectable()
+export class AdminService {
+
+  http: HttpClient;
+  private handleError: HandleError;
+
+  dashboardUrl = '/api/admin/dashboard';
+
+  constructor(http: HttpClient, httpErrorHandler: HttpErrorHandler) {
+    this.http = http;
+    this.handleError = httpErrorHandler.createHandleError('AdminService');
+  }
+
+  fetchDashboard(): Observable<any> {
+    return this.http.get<any>(this.dashboardUrl)
+      .pipe(
+        catchError(this.handleError('fetchDashboard', null))
+      );
+  }
+
+}
@@ -1,7 +1,7 @@
-import { Injectable } from "@angular/core";
-import { HttpClient } from '@angular/common/http';
-import { Observable, map } from 'rxjs';
-import { catchError } from 'rxjs/operators';
+import { Injectable, NgZone } from "@angular/core";
+import { HttpClient, HttpErrorResponse, HttpHeaders, HttpResponse } from '@angular/common/http';
+import { Observable, map, of, timer } from 'rxjs';
+import { catchError, switchMap, takeWhile } from 'rxjs/operators';
 import { HandleError, HttpErrorHandler } from './http-error-handler.service';
 
 @Injectable()
@@ -11,28 +11,67 @@ export class ModuleService {
   private handleError: HandleError;
 
   moduleListUrl = '/api/modules';
+  moduleStatusStreamUrl = '/api/modules/stream';
   globalConfigUrl = '/api/getGlobalConfig';
   deployApplicationUrl = "/api/deploy";
   undeployApplicationUrl = "/api/undeploy"
+  jobUrl = "/api/jobs/"
 
-  constructor(http: HttpClient, httpErrorHandler: HttpErrorHandler) {
+  //last ETag and body per url, sent back with If-None-Match so unchanged responses come back as 304
+  private cachedResponses = new Map<string, {etag: string, body: any}>();
+
+  constructor(http: HttpClient, httpErrorHandler: HttpErrorHandler, private zone: NgZone) {
     this.http = http;
     this.handleError = httpErrorHandler.createHandleError('ModuleListService');
   }
 
   fetchModuleList(): Observable<any> {
-    return this.http.get<any>(this.moduleListUrl)
+    return this.conditionalGet(this.moduleListUrl)
       .pipe(
         catchError(this.handleError('fetchModuleList', ''))
       );
   }
 
+  //server-sent events with the status of each module first, then only the status changes.
+  //The browser reconnects by itself after a dropped connection, but gives up after an error response,
+  //e.g. a 503 during a rolling restart or a 429 while the cluster is busy. The stream is then reopened with
+  //backoff, and {resync: true} is emitted so the module list is fetched again in the meantime.
+  streamModuleStatus(): Observable<any> {
+    return new Observable<any>(subscriber => {
+      let eventSource: EventSource;
+      let retryTimer;
+      let retryDelay = 1000;
+      const connect = () => {
+        eventSource = new EventSource(this.moduleStatusStreamUrl);
+        eventSource.onopen = () => {
+          retryDelay = 1000;
+        };
+        eventSource.onmessage = event => {
+          this.zone.run(() => subscriber.next(JSON.parse(event.data)));
+        };
+        eventSource.onerror = error => {
+          console.warn('module status stream interrupted', error);
+          if (eventSource.readyState === EventSource.CLOSED) {
+            this.zone.run(() => subscriber.next({resync: true}));
+            retryTimer = setTimeout(connect, retryDelay);
+            retryDelay = Math.min(retryDelay * 2, 30000);
+          }
+        };
+      };
+      connect();
+      return () => {
+        clearTimeout(retryTimer);
+        eventSource.close();
+      };
+    });
+  }
+
   deployApplication(application: string): Observable<any> {
     let payload = {
       application: application
     }
     return this.http.post<any>(this.deployApplicationUrl, payload)
-      .pipe(map(response => response))
+      .pipe(catchError(error => this.rejected(error)))
       .pipe(catchError(this.handleError('deployApplication', {status: 'error'})));
   }
 
@@ -41,15 +80,57 @@ export class ModuleService {
       application: application
     }
     return this.http.post<any>(this.undeployApplicationUrl, payload)
-      .pipe(map(response => response))
+      .pipe(catchError(error => this.rejected(error)))
       .pipe(catchError(this.handleError('undeployApplication', {status: 'error'})));
   }
 
+  //polls a deploy or undeploy job until it is finished, emitting its state on every poll
+  watchJob(jobId: string): Observable<any> {
+    return timer(1000, 2000)
+      .pipe(switchMap(() => this.http.get<any>(this.jobUrl + jobId)))
+      .pipe(takeWhile(job => job.state == 'pending' || job.state == 'running', true))
+      .pipe(catchError(this.handleError('watchJob', {state: 'failed'})));
+  }
+
+  //the server answers 409 when the deploy is not allowed, e.g. {status: 'rejected', error: 'MAX_MODULES_DEPLOYED'}
+  //or {status: 'rejected', error: 'OPERATION_IN_PROGRESS'} while the opposite action runs for the module,
+  //and 429 with {error: 'API_SERVER_UNAVAILABLE'} while the cluster API server is overloaded
+  private rejected(error: HttpErrorResponse): Observable<any> {
+    if (error.status == 409 && error.error && error.error.status == 'rejected') {
+      return of(error.error);
+    }
+    if (error.status == 429 && error.error) {
+      return of(error.error);
+    }
+    throw error;
+  }
+
   getGlobalConfig(): Observable<any> {
-    return this.http.get<any>(this.globalConfigUrl)
+    return this.conditionalGet(this.globalConfigUrl)
       .pipe(
         catchError(this.handleError('getGlobalConfig', ''))
       );
   }
 
+  private conditionalGet(url: string): Observable<any> {
+    const cached = this.cachedResponses.get(url);
+    const headers = cached ? new HttpHeaders({'If-None-Match': cached.etag}) : new HttpHeaders();
+    return this.http.get<any>(url, {headers: headers, observe: 'response'})
+      .pipe(map((response: HttpResponse<any>) => {
+        const etag = response.headers.get('ETag');
+        if (etag) {
+          this.cachedResponses.set(url, {etag: etag, body: response.body});
+        }
+        return response.body;
+      }))
+      .pipe(catchError((error: HttpErrorResponse) => {
+        //HttpClient reports 304 as an error, the body is the one of the cached response;
+        //while the server sheds load (429) the last known body is shown as well
+        if ((error.status == 304 || error.status == 429) && cached) {
+          return of(cached.body);
+        }
+        throw error;
+      }));
+  }
+
 }
@@ -0,0 +1,80 @@
+package com.redhat.madworkshop;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ApplicationTemplateTest {
+
+    private static final String APPLICATION = new JsonObject()
+            .put("apiVersion", "argoproj.io/v1alpha1")
+            .put("kind", "Application")
+            .put("metadata", new JsonObject()
+                    .put("name", "globex-{{ __user }}")
+                    .put("namespace", "globex-gitops-{{ __user }}")
+                    .put("labels", new JsonObject().put("workshop/user", "{{ __user }}"))
+                    .put("annotations", new JsonObject().put("argocd.argoproj.io/sync-wave", "1")))
+            .put("spec", new JsonObject()
+                    .put("project", "default")
+                    .put("source", new JsonObject()
+                            .put("repoURL", "https://github.com/rh-mad-workshop/workshop-modules.git")
+                            .put("helm", new JsonObject()
+                                    .put("values", "user: {{ __user }}\n")
+                                    .put("parameters", new JsonArray()
+                                            .add(new JsonObject().put("name", "user").put("value", "{{ __user }}"))
+                                            .add(new JsonObject().put("name", "replicas").put("value", 2)))))
+                    .put("syncPolicy", new JsonObject()
+                            .put("automated", new JsonObject().put("prune", true))))
+            .encode();
+
+    private final KubernetesSerialization serialization = new KubernetesSerialization();
+
+    @Test
+    void convertsTheMetadataToObjectMeta() {
+        GenericKubernetesResource resource = ApplicationTemplate.compile(APPLICATION).render("user1", serialization);
+        assertEquals("argoproj.io/v1alpha1", resource.getApiVersion());
+        assertEquals("Application", resource.getKind());
+        assertEquals("globex-user1", resource.getMetadata().getName());
+        assertEquals("globex-gitops-user1", resource.getMetadata().getNamespace());
+        assertEquals(Map.of("workshop/user", "user1"), resource.getMetadata().getLabels());
+        assertEquals(Map.of("argocd.argoproj.io/sync-wave", "1"), resource.getMetadata().getAnnotations());
+        assertNull(resource.getAdditionalProperties().get("metadata"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rendersNestedObjectsAndArrays() {
+        GenericKubernetesResource resource = ApplicationTemplate.compile(APPLICATION).render("user1", serialization);
+        Map<String, Object> spec = (Map<String, Object>) resource.getAdditionalProperties().get("spec");
+        Map<String, Object> helm = (Map<String, Object>) ((Map<String, Object>) spec.get("source")).get("helm");
+        assertEquals("user: user1\n", helm.get("values"));
+        assertEquals(List.of(Map.of("name", "user", "value", "user1"), Map.of("name", "replicas", "value", 2)),
+                helm.get("parameters"));
+        assertEquals("default", spec.get("project"));
+        assertEquals(Map.of("automated", Map.of("prune", true)), spec.get("syncPolicy"));
+    }
+
+    @Test
+    void rendersLikeTheStringReplacementItReplaced() {
+        GenericKubernetesResource rendered = ApplicationTemplate.compile(APPLICATION).render("user7", serialization);
+        JsonObject replaced = new JsonObject(APPLICATION.replaceAll("\\{\\{ __user }}", "user7"));
+        assertEquals(replaced, new JsonObject(serialization.asJson(rendered)));
+    }
+
+    @Test
+    void rendersEveryUserFromTheSameTemplate() {
+        ApplicationTemplate template = ApplicationTemplate.compile(APPLICATION);
+        GenericKubernetesResource first = template.render("user1", serialization);
+        GenericKubernetesResource second = template.render("user2", serialization);
+        assertEquals("globex-user1", first.getMetadata().getName());
+        assertEquals("globex-user2", second.getMetadata().getName());
+    }
+}
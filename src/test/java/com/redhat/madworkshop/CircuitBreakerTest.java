@@ -0,0 +1,117 @@
+package com.redhat.madworkshop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    private final CircuitBreaker breaker = new CircuitBreaker(3, 10_000, now::get);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertTrue(breaker.isRejecting());
+        assertNull(breaker.tryAcquirePermission());
+        assertEquals(10_000, breaker.millisUntilRetry());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        fail(2);
+        breaker.onSuccess(breaker.tryAcquirePermission());
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void callsInFlightWhenOpeningDoNotCloseTheBreaker() {
+        CircuitBreaker.Permit inFlight = breaker.tryAcquirePermission();
+        fail(3);
+        breaker.onSuccess(inFlight);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertTrue(breaker.isRejecting());
+    }
+
+    @Test
+    void callsInFlightWhenOpeningDoNotReopenTheBreaker() {
+        CircuitBreaker.Permit inFlight = breaker.tryAcquirePermission();
+        fail(3);
+        now.addAndGet(10_000);
+        CircuitBreaker.Permit trial = breaker.tryAcquirePermission();
+        breaker.onSuccess(trial);
+        breaker.onFailure(inFlight);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void letsASingleTrialCallThroughAfterTheOpenPeriod() {
+        fail(3);
+        now.addAndGet(9_999);
+        assertNull(breaker.tryAcquirePermission());
+        now.addAndGet(1);
+        assertFalse(breaker.isRejecting());
+        CircuitBreaker.Permit trial = breaker.tryAcquirePermission();
+        assertNotNull(trial);
+        assertTrue(trial.trial());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.isRejecting());
+        assertNull(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void successfulTrialClosesTheBreaker() {
+        fail(3);
+        now.addAndGet(10_000);
+        breaker.onSuccess(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        CircuitBreaker.Permit permit = breaker.tryAcquirePermission();
+        assertNotNull(permit);
+        assertFalse(permit.trial());
+    }
+
+    @Test
+    void failedTrialReopensTheBreaker() {
+        fail(3);
+        now.addAndGet(10_000);
+        breaker.onFailure(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(10_000, breaker.millisUntilRetry());
+    }
+
+    @Test
+    void ignoredTrialLetsTheNextCallBeTheTrial() {
+        fail(3);
+        now.addAndGet(10_000);
+        breaker.onIgnored(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        CircuitBreaker.Permit trial = breaker.tryAcquirePermission();
+        assertNotNull(trial);
+        assertTrue(trial.trial());
+    }
+
+    @Test
+    void ignoredCallsDoNotCount() {
+        fail(2);
+        breaker.onIgnored(breaker.tryAcquirePermission());
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onFailure(breaker.tryAcquirePermission());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.redhat.madworkshop;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModuleCatalogTest {
+
+    @Test
+    void looksUpModulesByApplicationName() {
+        ModuleCatalog catalog = ModuleCatalog.of(new JsonArray().add(module("Globex", "globex"))
+                .add(module("Inventory", "inventory")),
+                Map.of("globex", application("globex-app"), "inventory", application("inventory-app")));
+
+        ModuleDescriptor module = catalog.getModule("inventory-app").orElseThrow();
+        assertEquals("Inventory", module.name());
+        assertEquals("inventory-app", module.applicationName());
+        assertEquals(List.of("inventory-user1"), module.namespacesFor("user1"));
+        assertTrue(catalog.getModule("globex-app").isPresent());
+    }
+
+    @Test
+    void doesNotLookUpByModuleOrConfigMapName() {
+        ModuleCatalog catalog = ModuleCatalog.of(new JsonArray().add(module("Globex", "globex")),
+                Map.of("globex", application("globex-app")));
+
+        assertFalse(catalog.getModule("globex").isPresent());
+        assertFalse(catalog.getModule("Globex").isPresent());
+        assertTrue(catalog.getModule("globex-app").isPresent());
+    }
+
+    @Test
+    void skipsModulesWithoutApplicationConfigMap() {
+        ModuleCatalog catalog = ModuleCatalog.of(new JsonArray().add(module("Globex", "globex"))
+                .add(module("Missing", "missing")), Map.of("globex", application("globex-app")));
+
+        assertEquals(List.of("Globex"), catalog.modules().stream().map(ModuleDescriptor::name).toList());
+        assertTrue(catalog.getModule("globex-app").isPresent());
+    }
+
+    @Test
+    void keepsTheOrderOfTheModulesConfigMap() {
+        ModuleCatalog catalog = ModuleCatalog.of(new JsonArray().add(module("B", "b")).add(module("A", "a")),
+                Map.of("a", application("a-app"), "b", application("b-app")));
+
+        assertEquals(List.of("B", "A"), catalog.modules().stream().map(ModuleDescriptor::name).toList());
+    }
+
+    @Test
+    void serializesTheStaticModuleFields() {
+        ModuleCatalog catalog = ModuleCatalog.of(new JsonArray().add(module("Globex", "globex")),
+                Map.of("globex", application("globex-app")));
+
+        JsonObject json = new JsonObject(catalog.modules().get(0).staticJson() + "}");
+        assertEquals("Globex", json.getString("name"));
+        assertEquals("globex-app", json.getString("application"));
+        assertEquals(new JsonArray().add("primary-globex"), json.getJsonArray("primaryTags"));
+        assertFalse(json.getBoolean("isDefault"));
+    }
+
+    private static JsonObject module(String name, String configMap) {
+        return new JsonObject()
+                .put("name", name)
+                .put("description", name + " module")
+                .put("configMap", configMap)
+                .put("tags", new JsonObject().put("primary", new JsonArray().add("primary-" + configMap)))
+                .put("namespaces", new JsonArray().add(configMap + "-{{ __user }}"));
+    }
+
+    private static String application(String name) {
+        return new JsonObject()
+                .put("apiVersion", "argoproj.io/v1alpha1")
+                .put("kind", "Application")
+                .put("metadata", new JsonObject().put("name", name))
+                .encode();
+    }
+}
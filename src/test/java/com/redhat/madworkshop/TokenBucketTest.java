@@ -0,0 +1,114 @@
+package com.redhat.madworkshop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(5 * SECOND);
+
+    // 10 tokens per second, 100 ms per token
+    private final TokenBucket bucket = new TokenBucket(10, 2, now::get);
+
+    @Test
+    void startsFull() {
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void refillsAtTheRateUpToTheCapacity() {
+        drain();
+        now.addAndGet(SECOND / 10);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        now.addAndGet(10 * SECOND);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void reservesWithoutWaitWhileTokensAreAvailable() {
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+    }
+
+    @Test
+    void reservationsQueueBehindEachOther() {
+        drain();
+        assertEquals(SECOND / 10, bucket.reserve(Long.MAX_VALUE));
+        assertEquals(2 * SECOND / 10, bucket.reserve(Long.MAX_VALUE));
+        assertEquals(3 * SECOND / 10, bucket.nanosUntilAvailable());
+    }
+
+    @Test
+    void accountsForPartialRefill() {
+        drain();
+        now.addAndGet(SECOND / 20);
+        assertEquals(SECOND / 20, bucket.nanosUntilAvailable());
+        assertEquals(SECOND / 20, bucket.reserve(Long.MAX_VALUE));
+    }
+
+    @Test
+    void doesNotTakeATokenBeyondTheMaximumWait() {
+        drain();
+        assertEquals(-1, bucket.reserve(SECOND / 10 - 1));
+        assertEquals(SECOND / 10, bucket.nanosUntilAvailable());
+        assertEquals(SECOND / 10, bucket.reserve(SECOND / 10));
+    }
+
+    @Test
+    void tryAcquireWithTimeoutFailsFastWhenTheWaitIsTooLong() throws InterruptedException {
+        drain();
+        assertFalse(bucket.tryAcquire(50, TimeUnit.MILLISECONDS));
+        assertEquals(SECOND / 10, bucket.nanosUntilAvailable());
+    }
+
+    @Test
+    void refundedTokenIsAvailableAgain() {
+        drain();
+        bucket.refund();
+        assertEquals(0, bucket.nanosUntilAvailable());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void refundCancelsAReservation() {
+        drain();
+        assertEquals(SECOND / 10, bucket.reserve(Long.MAX_VALUE));
+        bucket.refund();
+        assertEquals(SECOND / 10, bucket.nanosUntilAvailable());
+    }
+
+    @Test
+    void refundDoesNotExceedTheCapacity() {
+        bucket.refund();
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0.5));
+    }
+
+    private void drain() {
+        while (bucket.tryAcquire()) {
+            // take all tokens
+        }
+    }
+}
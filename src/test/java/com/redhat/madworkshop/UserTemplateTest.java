@@ -0,0 +1,57 @@
+package com.redhat.madworkshop;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserTemplateTest {
+
+    @Test
+    void rendersPlaceholderAtTheStart() {
+        assertEquals("user1-globex", UserTemplate.compile("{{ __user }}-globex").render("user1"));
+    }
+
+    @Test
+    void rendersPlaceholderAtTheEnd() {
+        assertEquals("globex-user1", UserTemplate.compile("globex-{{ __user }}").render("user1"));
+    }
+
+    @Test
+    void rendersRepeatedPlaceholders() {
+        UserTemplate template = UserTemplate.compile("{{ __user }}/{{ __user }}{{ __user }}-db-{{ __user }}");
+        assertEquals("user1/user1user1-db-user1", template.render("user1"));
+    }
+
+    @Test
+    void rendersTemplateWhichIsOnlyThePlaceholder() {
+        assertEquals("user1", UserTemplate.compile("{{ __user }}").render("user1"));
+    }
+
+    @Test
+    void keepsStringWithoutPlaceholder() {
+        UserTemplate template = UserTemplate.compile("globex-gitops");
+        assertFalse(template.hasPlaceholder());
+        assertEquals("globex-gitops", template.render("user1"));
+    }
+
+    @Test
+    void rendersLikeTheStringReplacementItReplaced() {
+        String text = "user: {{ __user }}\nnamespace: module-{{ __user }}\n{{ __user}} {{__user }}";
+        UserTemplate template = UserTemplate.compile(text);
+        assertTrue(template.hasPlaceholder());
+        assertEquals(text.replaceAll("\\{\\{ __user }}", "user42"), template.render("user42"));
+    }
+
+    @Test
+    void rendersEmptyUser() {
+        assertEquals("globex-", UserTemplate.compile("globex-{{ __user }}").render(""));
+    }
+
+    @Test
+    void printsTheTemplate() {
+        String text = "{{ __user }}-a-{{ __user }}";
+        assertEquals(text, UserTemplate.compile(text).toString());
+    }
+}